@@ -1,6 +1,7 @@
 package cn.acyco._01_future_vs_completablefuture;
 
 import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.SensitiveWordFilter;
 
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -12,10 +13,10 @@ import java.util.concurrent.Future;
 
         ExecutorService executor = Executors.newFixedThreadPool(5);
         // step 1: 读取敏感词汇 => thread1
-        Future<String[]> filterWordFuture = executor.submit(() -> {
+        Future<SensitiveWordFilter> filterWordFuture = executor.submit(() -> {
             String str = CommonUtils.readFile("filter_words.txt");
             String[] filterWords = str.split(",");
-            return filterWords;
+            return SensitiveWordFilter.of(filterWords);
         });
 
         // step 2: 读取新闻稿 => thread2
@@ -25,14 +26,9 @@ import java.util.concurrent.Future;
 
         // step 3: 替换操作 => thread3
         Future<String> replaceFuture = executor.submit(() -> {
-            String[] words = filterWordFuture.get();
+            SensitiveWordFilter filter = filterWordFuture.get();
             String news = newsFuture.get();
-            for (String word : words) {
-                if (news.indexOf(word) > 0) {
-                    news = news.replace(word, "**");
-                }
-            }
-            return news;
+            return filter.filter(news);
         });
         // step 4: 打印输出替换后的新闻稿 => main
         String filteredNews = replaceFuture.get();
@@ -0,0 +1,64 @@
+package cn.acyco._04_completablefuture_arrange;
+
+import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.CompletableFutures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AllOfFailFastDemo {
+
+    // 模拟耗时的任务，seconds 秒后返回结果，fail 为 true 时抛出异常
+    public static String work(String name, int seconds, boolean fail) {
+        try {
+            TimeUnit.SECONDS.sleep(seconds);
+        } catch (InterruptedException e) {
+            CommonUtils.printTheadLog(name + "被中断，线程被释放");
+            throw new IllegalStateException(name + " interrupted");
+        }
+        if (fail) {
+            throw new IllegalStateException(name + "读取失败");
+        }
+        CommonUtils.printTheadLog(name + "完成");
+        return name;
+    }
+
+    public static void main(String[] args) {
+        // 需求：3个异步任务中有1个在1秒后失败，allOf 仍要等待最慢的任务（5秒）结束才能得知失败
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        // 使用allOf
+        long start = System.currentTimeMillis();
+        CompletableFuture<Void> allOfFuture = CompletableFuture.allOf(
+                CompletableFuture.supplyAsync(() -> work("news1", 1, true), executor),
+                CompletableFuture.supplyAsync(() -> work("news2", 3, false), executor),
+                CompletableFuture.supplyAsync(() -> work("news3", 5, false), executor));
+        allOfFuture.exceptionally(ex -> {
+            CommonUtils.printTheadLog("allOf 出现异常：" + ex);
+            return null;
+        }).join();
+        System.out.printf("allOf cost %.2f second\n", (System.currentTimeMillis() - start) / 1000.0);
+
+        // 使用allOfFailFast：第一个异常立即返回，并中断其余任务
+        start = System.currentTimeMillis();
+        CompletableFuture<Void> failFastFuture = CompletableFutures.allOfFailFast(
+                CompletableFutures.supplyInterruptibly(() -> work("news1", 1, true), executor),
+                CompletableFutures.supplyInterruptibly(() -> work("news2", 3, false), executor),
+                CompletableFutures.supplyInterruptibly(() -> work("news3", 5, false), executor));
+        failFastFuture.exceptionally(ex -> {
+            CommonUtils.printTheadLog("allOfFailFast 出现异常：" + ex);
+            return null;
+        }).join();
+        System.out.printf("allOfFailFast cost %.2f second\n", (System.currentTimeMillis() - start) / 1000.0);
+
+        // 关闭线程池
+        executor.shutdown();
+
+        /**
+         * allOf 在所有任务结束后才完成，异常被包装成 CompletionException
+         * allOfFailFast 在第一个任务失败时立即完成，得到的是原始异常，其余任务被中断，线程立即释放
+         */
+    }
+}
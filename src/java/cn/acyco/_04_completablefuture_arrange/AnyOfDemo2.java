@@ -0,0 +1,43 @@
+package cn.acyco._04_completablefuture_arrange;
+
+import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.CompletableFutures;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+public class AnyOfDemo2 {
+    public static void main(String[] args) {
+        // 需求：从3个镜像数据源获取价格，使用最快返回的正常结果
+        // 镜像1最快，但它返回的是异常
+        CompletableFuture<Integer> mirror1 = CompletableFuture.supplyAsync(() -> {
+            CommonUtils.sleepSecond(1);
+            throw new IllegalStateException("镜像1不可用");
+        });
+
+        CompletableFuture<Integer> mirror2 = CompletableFuture.supplyAsync(() -> {
+            CommonUtils.sleepSecond(2);
+            return 5199;
+        });
+
+        CompletableFuture<Integer> mirror3 = CompletableFuture.supplyAsync(() -> {
+            CommonUtils.sleepSecond(3);
+            return 5299;
+        });
+
+        // anyOf：返回 CompletableFuture<Object>，最快的异常赢得了比赛
+        CompletableFuture<Object> anyOfFuture = CompletableFuture.anyOf(mirror1, mirror2, mirror3);
+        Object anyOfRet = anyOfFuture.exceptionally(ex -> "anyOf 出现异常：" + ex.getMessage()).join();
+        CommonUtils.printTheadLog("anyOfRet = " + anyOfRet);
+
+        // firstSuccessOf：返回 CompletableFuture<Integer>，忽略失败的镜像，取最快的正常结果，并取消较慢的镜像
+        CompletableFuture<Integer> firstSuccessFuture = CompletableFutures.firstSuccessOf(Arrays.asList(mirror1, mirror2, mirror3));
+        Integer price = firstSuccessFuture.join();
+        CommonUtils.printTheadLog("price = " + price + ", mirror3 cancelled = " + mirror3.isCancelled());
+
+        /**
+         * anyOf 返回第一个完成的结果，不论成功还是失败，结果类型是 Object
+         * firstSuccessOf 返回第一个成功的结果，只有全部失败时才失败，结果类型与输入一致
+         */
+    }
+}
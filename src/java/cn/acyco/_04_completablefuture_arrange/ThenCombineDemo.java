@@ -1,6 +1,7 @@
 package cn.acyco._04_completablefuture_arrange;
 
 import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.SensitiveWordFilter;
 
 import java.util.concurrent.*;
 
@@ -9,12 +10,12 @@ public class ThenCombineDemo {
         // 需求：替换新闻稿（ news.txt )中敏感词汇，把敏感词汇替换成*，敏感词存储在 filter_words.txt 中
         CommonUtils.printTheadLog("main start");
 
-        // step 1: 读取filter_words.txt文件内容，并解析成敏感数组
-        CompletableFuture<String[]> future1 = CompletableFuture.supplyAsync(() -> {
+        // step 1: 读取filter_words.txt文件内容，并构建敏感词过滤器
+        CompletableFuture<SensitiveWordFilter> future1 = CompletableFuture.supplyAsync(() -> {
             CommonUtils.printTheadLog("读取filter_words文件");
             String filterWordsContent = CommonUtils.readFile("filter_words.txt");
             String[] filterWords = filterWordsContent.split(",");
-            return filterWords;
+            return SensitiveWordFilter.of(filterWords);
         });
 
         // step 2: 读取news.txt文件内容
@@ -26,14 +27,9 @@ public class ThenCombineDemo {
 
         // step 2: 替换操作
         ExecutorService executor = Executors.newFixedThreadPool(4);
-        CompletableFuture<String> combineFuture = future1.thenCombineAsync(future2, (filterWords, newsContent) -> {
+        CompletableFuture<String> combineFuture = future1.thenCombineAsync(future2, (filter, newsContent) -> {
             CommonUtils.printTheadLog("替换操作");
-            for (String word : filterWords) {
-                if (newsContent.indexOf(word) >= 0) {
-                    newsContent = newsContent.replace(word, "**");
-                }
-            }
-            return newsContent;
+            return filter.filter(newsContent);
         },executor);
 
         CommonUtils.printTheadLog("main continue");
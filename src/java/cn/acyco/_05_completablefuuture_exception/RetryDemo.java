@@ -0,0 +1,57 @@
+package cn.acyco._05_completablefuuture_exception;
+
+import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.Retry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetryDemo {
+    public static void main(String[] args) {
+        // 需求：平台偶尔返回临时错误，不要直接用 "UnKnown" 代替结果，而是退避一段时间后重试
+
+        // 最多调用4次，退避从100ms开始翻倍，最长800ms；只重试 IllegalStateException（模拟的临时错误）
+        Retry retry = new Retry(4, 100, 800, ex -> ex instanceof IllegalStateException);
+
+        // step 1: 前两次调用失败，第三次成功
+        AtomicInteger counter = new AtomicInteger();
+        CompletableFuture<String> future = retry.call(() -> CompletableFuture.supplyAsync(() -> {
+            int attempt = counter.incrementAndGet();
+            CommonUtils.printTheadLog("第" + attempt + "次调用");
+            if (attempt < 3) {
+                throw new IllegalStateException("临时错误" + attempt);
+            }
+            return "result1";
+        }));
+        CommonUtils.printTheadLog("ret = " + future.join());
+
+        // step 2: 一直失败，下一次退避会超过500ms的截止时间时放弃重试，以最后一次的异常结束
+        CompletableFuture<String> failing = retry.<String>call(() -> CompletableFuture.supplyAsync(() -> {
+            CommonUtils.printTheadLog("调用失败的平台");
+            throw new IllegalStateException("平台不可用");
+        }), 500, TimeUnit.MILLISECONDS).exceptionally(ex -> {
+            CommonUtils.printTheadLog("放弃重试：" + ex.getMessage());
+            return "UnKnown";
+        });
+        CommonUtils.printTheadLog("ret = " + failing.join());
+
+        // step 3: 不可重试的异常立即结束，不会重试
+        CompletableFuture<Integer> nonRetryable = retry.<Integer>call(() -> CompletableFuture.supplyAsync(() -> {
+                    throw new ArithmeticException("/ by zero");
+                }))
+                .exceptionally(ex -> {
+                    CommonUtils.printTheadLog("不可重试的异常：" + ex.getMessage());
+                    return -1;
+                });
+        nonRetryable.join();
+
+        System.out.printf("calls = %d, attempts = %d, retries = %d, give ups = %d\n",
+                retry.getCallCount(), retry.getAttemptCount(), retry.getRetryCount(), retry.getGiveUpCount());
+
+        /**
+         * 退避期间没有任何线程在 sleep：下一次调用由 delayedExecutor 在到期后提交，
+         * 同时重试的请求再多，也不会因为等待而多占用线程。
+         */
+    }
+}
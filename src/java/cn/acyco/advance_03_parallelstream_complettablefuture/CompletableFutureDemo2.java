@@ -21,7 +21,7 @@ public class CompletableFutureDemo2 {
 
         // 准备线程池
         int N_CPU = Runtime.getRuntime().availableProcessors();
-        // 设置线程池中的线程的数量至少为10
+        // 线程数取任务数和 2 * Ncpu 中较小的一个：线程数不超过任务数，也不超过IO密集型任务的参考值
         ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(),N_CPU * 2));
 
         // step 2: 根据MyTask对象构建10个异步任务
@@ -0,0 +1,60 @@
+package cn.acyco.advance_03_parallelstream_complettablefuture;
+
+import cn.acyco.utils.AdaptiveThreadPoolExecutor;
+import cn.acyco.utils.CommonUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class CompletableFutureDemo3 {
+    public static void main(String[] args) {
+        // CompletableFuture 在流式操作中的优势
+        // 需求： 创建100个 MyTask 耗时的任务， 统计它们执行完的总耗时
+        // 方案四：使用根据 W/C 自动调整线程数的线程池，不必手动估算线程数
+
+        // step 1: 创建100个MyTask对象，每个任务持续1s, 存入List集合
+        List<MyTask> tasks = IntStream.range(0, 100)
+                .mapToObj(item -> new MyTask(1))
+                .collect(Collectors.toList());
+
+        // 准备线程池：线程数在 [Ncpu, 200] 之间，每200毫秒按 N_threads = N_cpu * U * (1 + W/C) 调整一次
+        int N_CPU = Runtime.getRuntime().availableProcessors();
+        AdaptiveThreadPoolExecutor executor = new AdaptiveThreadPoolExecutor(N_CPU, 200, 1.0, 200);
+
+        // 每秒打印一次线程池状态
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+        monitor.scheduleAtFixedRate(() -> CommonUtils.printTheadLog(String.format(
+                "W/C = %.1f, target = %d, active = %d, queue = %d",
+                executor.getWaitComputeRatio(), executor.getTargetPoolSize(),
+                executor.getActiveWorkers(), executor.getQueueDepth())), 0, 1, TimeUnit.SECONDS);
+
+        // step 2: 根据MyTask对象构建100个异步任务
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<Integer>> futures = tasks.stream()
+                .map(myTask -> CompletableFuture.supplyAsync(myTask::doWork, executor))
+                .collect(Collectors.toList());
+
+        // step 3: 获取异步任务的结果，统计总耗时
+        List<Integer> results = futures
+                .stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+        long end = System.currentTimeMillis();
+
+        double costTime = (end - start) / 1000.0;
+        System.out.printf("processed %d tasks %.2f second\n", tasks.size(), costTime);
+
+        // 关闭线程池
+        monitor.shutdown();
+        executor.shutdown();
+
+        /**
+         * 第一批任务完成后线程池测得 W/C 很大，线程数增长到上限，剩余任务很快执行完
+         */
+    }
+}
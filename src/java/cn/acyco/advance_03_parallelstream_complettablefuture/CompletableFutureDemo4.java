@@ -0,0 +1,53 @@
+package cn.acyco.advance_03_parallelstream_complettablefuture;
+
+import cn.acyco.utils.CompletableFutures;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class CompletableFutureDemo4 {
+    public static void main(String[] args) {
+        // 需求： 执行10000个 MyTask 耗时任务（每个10毫秒），统计总耗时
+        // 之前的做法：一次性为所有任务创建 CompletableFuture，10000个任务同时挤在线程池的队列里
+        // 方案五：同时最多执行100个任务，一个完成再从流中取下一个，结果按原顺序归集到List中
+        // 直接把流交给 supplyAllBounded，边取边执行，不会先把10000个任务全部收集到内存中
+
+        ExecutorService executor = Executors.newFixedThreadPool(100);
+
+        long start = System.currentTimeMillis();
+        Stream<Supplier<Integer>> tasks = IntStream.range(0, 10000)
+                .mapToObj(item -> MyTask.ofMillis(10))
+                .map(myTask -> myTask::doWork);
+        CompletableFuture<List<Integer>> future = CompletableFutures.supplyAllBounded(tasks, executor, 100, true);
+        List<Integer> results = future.join();
+        long end = System.currentTimeMillis();
+
+        double costTime = (end - start) / 1000.0;
+        System.out.printf("processed %d tasks %.2f second\n", results.size(), costTime);
+
+        // 流水线本身抛出异常时，结果以该异常结束，而不是一直等待
+        Stream<Supplier<Integer>> brokenTasks = IntStream.range(0, 1000)
+                .mapToObj(item -> {
+                    if (item == 500) {
+                        throw new IllegalStateException("第" + item + "个任务创建失败");
+                    }
+                    return MyTask.ofMillis(10);
+                })
+                .map(myTask -> myTask::doWork);
+        CompletableFuture<List<Integer>> brokenFuture = CompletableFutures.supplyAllBounded(brokenTasks, executor, 100, true);
+        try {
+            brokenFuture.join();
+        } catch (CompletionException e) {
+            System.out.println("stream failed: " + e.getCause().getMessage());
+        }
+
+        // 关闭线程池
+        executor.shutdown();
+    }
+}
@@ -1,18 +1,30 @@
 package cn.acyco.advance_03_parallelstream_complettablefuture;
 
+import cn.acyco.utils.AsyncLogger;
 import cn.acyco.utils.CommonUtils;
 
 public class MyTask {
-    private int duration;
+    private long durationMillis;
+    // doWork 的返回值：按秒创建时为秒数，按毫秒创建时为毫秒数
+    private int result;
 
     public MyTask(int duration) {
-        this.duration = duration;
+        this.durationMillis = duration * 1000L;
+        this.result = duration;
+    }
+
+    // 以毫秒为单位指定任务耗时，用于基准测试中调整模拟耗时
+    public static MyTask ofMillis(long durationMillis) {
+        MyTask task = new MyTask(0);
+        task.durationMillis = durationMillis;
+        task.result = (int) durationMillis;
+        return task;
     }
 
     // 模拟耗时的长任务
     public int doWork() {
-        CommonUtils.printTheadLog("doWork");
-        CommonUtils.sleepSecond(duration);
-        return duration;
+        AsyncLogger.log("doWork");
+        CommonUtils.sleepMillis(durationMillis);
+        return result;
     }
 }
@@ -0,0 +1,91 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.AdaptiveConcurrencyLimiter;
+import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AdaptiveLimitDemo {
+
+    /**
+     * 容量有限的模拟平台：同时处理的查询不超过 capacity 个时耗时 50ms，
+     * 超过后耗时随并发数平方增长（过载时互相争抢资源，吞吐量反而下降），超过 3 倍容量时直接报错
+     */
+    static class CapacityLimitedPlatform implements PlatformPriceClient {
+        private final int capacity;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final SimulatedPlatformPriceClient backend;
+
+        CapacityLimitedPlatform(int capacity) {
+            this.capacity = capacity;
+            this.backend = new SimulatedPlatformPriceClient(Platform.TAOBAO, 5199, 200,
+                    () -> {
+                        double load = Math.max(1.0, (double) inFlight.get() / capacity);
+                        return (long) (50 * load * load);
+                    });
+        }
+
+        @Override
+        public Platform getPlatform() {
+            return Platform.TAOBAO;
+        }
+
+        @Override
+        public CompletableFuture<PriceResult> getPrice(String productName) {
+            int current = inFlight.incrementAndGet();
+            CompletableFuture<PriceResult> future = current > capacity * 3
+                    ? CompletableFuture.failedFuture(new IllegalStateException("overloaded"))
+                    : backend.getPrice(productName);
+            return future.whenComplete((priceResult, ex) -> inFlight.decrementAndGet());
+        }
+
+        @Override
+        public CompletableFuture<Integer> getDiscount(String productName) {
+            return backend.getDiscount(productName);
+        }
+    }
+
+    // 3秒内每毫秒发出一次价格查询，统计成功查询的耗时和失败次数
+    static void run(String name, PlatformPriceClient client, AdaptiveConcurrencyLimiter limiter) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        long end = System.currentTimeMillis() + 3000;
+        while (System.currentTimeMillis() < end) {
+            long start = System.nanoTime();
+            futures.add(client.getPrice("iPhone14").whenComplete((priceResult, ex) -> {
+                if (ex == null) {
+                    histogram.record(System.nanoTime() - start);
+                } else {
+                    errors.increment();
+                }
+            }));
+            CommonUtils.sleepMillis(1);
+        }
+        futures.forEach(future -> future.exceptionally(ex -> null).join());
+        System.out.printf("%-10s ok %s, errors = %d%s\n", name, histogram.summary(TimeUnit.MILLISECONDS), errors.sum(),
+                limiter == null ? "" : ", limit = " + limiter.getLimit() + ", shed = " + limiter.getRejectedCount());
+    }
+
+    public static void main(String[] args) {
+        // 需求：平台只能同时处理约20个查询，不手工设置并发数，让调用方自动逼近平台的真实容量而不把它压垮
+
+        // 方案一：不限流，每毫秒1个请求、每个至少50ms，在途请求远超容量，耗时上升后进一步堆积，最终大量报错
+        run("unlimited", new CapacityLimitedPlatform(20), null);
+
+        // 方案二：自适应限流，最多排队20个，超出的请求立即丢弃
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 200, 20, 1.5, 0.9);
+        run("adaptive", new LimitedPlatformPriceClient(new CapacityLimitedPlatform(20), limiter), limiter);
+
+        /**
+         * unlimited  成功 466 次，p50 453ms：在途请求堆积到容量的3倍，每个请求都变慢，吞吐量远低于平台容量
+         * adaptive   成功 994 次，p50 122ms：并发上限自动收敛到 21 左右（约等于平台容量），多余的请求被立即丢弃
+         */
+    }
+}
@@ -0,0 +1,45 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.CommonUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class BatchComparePriceDemo {
+    public static void main(String[] args) {
+        // 需求：获取100个商品各自在所有平台（淘宝、京东、拼多多、唯品会）上的最优价格
+        // 整个服务同时最多进行50组 商品×平台 的查询，多个批次共用这一上限
+        ComparePriceService service = new ComparePriceService(50);
+        // 注册新的平台
+        service.registerClient(new SimulatedPlatformPriceClient(Platform.VIP, 5099, 100, 800));
+
+        List<String> products = IntStream.range(0, 100)
+                .mapToObj(i -> "iPhone14-" + i)
+                .collect(Collectors.toList());
+
+        // 每个商品比价完成后立即输出
+        long start = System.currentTimeMillis();
+        CompletableFuture<Map<String, PriceResult>> future = service.batchCheapestPrice(products,
+                (productName, priceResult) -> CommonUtils.printTheadLog(productName + "最优价格：" + priceResult));
+        Map<String, PriceResult> results = future.join();
+        long end = System.currentTimeMillis();
+
+        double costTime = (end - start) / 1000.0;
+        System.out.printf("compared %d products cost %.2f second\n", results.size(), costTime);
+
+        // 列式结果：不为每个商品创建结果对象，需要时再按行读取
+        PriceTable table = service.batchCheapestPriceTable(products).join();
+        int cheapestRow = table.cheapestRow();
+        System.out.println(products.get(cheapestRow) + "最优价格：" + table.get(cheapestRow));
+
+        // 所有商品、所有平台中最便宜的5个报价，不需要对全部报价排序
+        List<PriceResult> cheapestOffers = service.cheapestOffers(products, 5).join();
+        cheapestOffers.forEach(System.out::println);
+
+        // 关闭比价服务
+        service.close();
+    }
+}
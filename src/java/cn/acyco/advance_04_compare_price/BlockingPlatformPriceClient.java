@@ -0,0 +1,50 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 把 {@link HttpRequest} 中阻塞的静态方法适配成 {@link PlatformPriceClient}，每次调用在 executor 中占用一个线程
+ */
+public class BlockingPlatformPriceClient implements PlatformPriceClient {
+    private final Platform platform;
+    private final Function<String, PriceResult> priceRequest;
+    private final ToIntFunction<String> discountRequest;
+    private final Executor executor;
+
+    public BlockingPlatformPriceClient(Platform platform, Function<String, PriceResult> priceRequest, ToIntFunction<String> discountRequest, Executor executor) {
+        this.platform = platform;
+        this.priceRequest = priceRequest;
+        this.discountRequest = discountRequest;
+        this.executor = executor;
+    }
+
+    public static BlockingPlatformPriceClient taoBao(Executor executor) {
+        return new BlockingPlatformPriceClient(Platform.TAOBAO, HttpRequest::getTaobaoPrice, HttpRequest::getTaoBaoDiscount, executor);
+    }
+
+    public static BlockingPlatformPriceClient jDong(Executor executor) {
+        return new BlockingPlatformPriceClient(Platform.JDONG, HttpRequest::getJDongPrice, HttpRequest::getJDongDiscount, executor);
+    }
+
+    public static BlockingPlatformPriceClient pdd(Executor executor) {
+        return new BlockingPlatformPriceClient(Platform.PDD, HttpRequest::getPDDPrice, HttpRequest::getPDDDiscount, executor);
+    }
+
+    @Override
+    public Platform getPlatform() {
+        return platform;
+    }
+
+    @Override
+    public CompletableFuture<PriceResult> getPrice(String productName) {
+        return CompletableFuture.supplyAsync(() -> priceRequest.apply(productName), executor);
+    }
+
+    @Override
+    public CompletableFuture<Integer> getDiscount(String productName) {
+        return CompletableFuture.supplyAsync(() -> discountRequest.applyAsInt(productName), executor);
+    }
+}
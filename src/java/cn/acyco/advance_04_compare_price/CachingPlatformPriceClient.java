@@ -0,0 +1,47 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带缓存的平台客户端：按商品缓存价格和优惠，有效期 ttl，每种缓存最多 maxSize 个商品
+ * <p>
+ * 同一个商品的并发查询共享同一次上游调用，热门商品在有效期内只会查询一次上游平台。
+ */
+public class CachingPlatformPriceClient implements PlatformPriceClient {
+    private final PlatformPriceClient delegate;
+    private final AsyncCache<String, PriceResult> priceCache;
+    private final AsyncCache<String, Integer> discountCache;
+
+    public CachingPlatformPriceClient(PlatformPriceClient delegate, long ttl, TimeUnit unit, int maxSize) {
+        this.delegate = delegate;
+        this.priceCache = new AsyncCache<>(ttl, unit, maxSize);
+        this.discountCache = new AsyncCache<>(ttl, unit, maxSize);
+    }
+
+    @Override
+    public Platform getPlatform() {
+        return delegate.getPlatform();
+    }
+
+    @Override
+    public CompletableFuture<PriceResult> getPrice(String productName) {
+        // PriceResult 不可变，缓存中的结果可以直接共享给所有调用方
+        return priceCache.get(productName, delegate::getPrice);
+    }
+
+    @Override
+    public CompletableFuture<Integer> getDiscount(String productName) {
+        return discountCache.get(productName, delegate::getDiscount);
+    }
+
+    public AsyncCache<String, PriceResult> getPriceCache() {
+        return priceCache;
+    }
+
+    public AsyncCache<String, Integer> getDiscountCache() {
+        return discountCache;
+    }
+}
@@ -0,0 +1,38 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class CachingPriceClientDemo {
+    public static void main(String[] args) {
+        // 需求：高峰期1000个请求同时查询热门商品iPhone14的最优价格
+        // 为每个平台加上缓存，相同商品的并发查询共享一次上游调用，结果缓存1分钟
+        List<CachingPlatformPriceClient> clients = Arrays.asList(
+                new CachingPlatformPriceClient(SimulatedPlatformPriceClient.taoBao(), 1, TimeUnit.MINUTES, 10_000),
+                new CachingPlatformPriceClient(SimulatedPlatformPriceClient.jDong(), 1, TimeUnit.MINUTES, 10_000),
+                new CachingPlatformPriceClient(SimulatedPlatformPriceClient.pdd(), 1, TimeUnit.MINUTES, 10_000));
+        ComparePriceService service = new ComparePriceService(List.copyOf(clients));
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<PriceResult>> futures = IntStream.range(0, 1000)
+                .mapToObj(i -> service.getCheapestPlatformPriceAsync("iPhone14"))
+                .collect(Collectors.toList());
+        futures.forEach(CompletableFuture::join);
+        long end = System.currentTimeMillis();
+
+        double costTime = (end - start) / 1000.0;
+        System.out.printf("1000 requests cost %.2f second\n", costTime);
+        for (CachingPlatformPriceClient client : clients) {
+            System.out.printf("%s: upstream calls = %d, cache hits = %d\n", client.getPlatform(),
+                    client.getPriceCache().missCount() + client.getDiscountCache().missCount(),
+                    client.getPriceCache().hitCount() + client.getDiscountCache().hitCount());
+        }
+
+        // 关闭比价服务
+        service.close();
+    }
+}
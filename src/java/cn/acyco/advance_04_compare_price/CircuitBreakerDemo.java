@@ -0,0 +1,52 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.CircuitBreaker;
+import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.NamedThreadFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class CircuitBreakerDemo {
+    public static void main(String[] args) {
+        // 需求：拼多多平台故障（每次调用都要1秒多），不能拖慢整个比价请求，也不能占满其他平台的线程
+        HttpRequest.setMockLatencyMillis(100);
+
+        // step 1: 舱壁——每个平台使用独立的线程池，拼多多的慢调用只占用拼多多自己的线程
+        ExecutorService taoBaoPool = Executors.newFixedThreadPool(4, new NamedThreadFactory("taobao"));
+        ExecutorService jDongPool = Executors.newFixedThreadPool(4, new NamedThreadFactory("jdong"));
+        ExecutorService pddPool = Executors.newFixedThreadPool(4, new NamedThreadFactory("pdd"));
+        BlockingPlatformPriceClient sickPdd = new BlockingPlatformPriceClient(Platform.PDD,
+                productName -> {
+                    CommonUtils.sleepMillis(1000);
+                    return HttpRequest.getPDDPrice(productName);
+                },
+                productName -> {
+                    CommonUtils.sleepMillis(1000);
+                    return HttpRequest.getPDDDiscount(productName);
+                }, pddPool);
+
+        // step 2: 熔断——最近10次调用中至少4次，超过一半耗时超过500ms时熔断3秒
+        CircuitBreaker pddBreaker = new CircuitBreaker("PDD", 10, 4, 0.5, 0.5, 500, 3000, 2);
+        ComparePriceService service = new ComparePriceService(Arrays.asList(
+                new ResilientPlatformPriceClient(BlockingPlatformPriceClient.taoBao(taoBaoPool), 500, 4, 16),
+                new ResilientPlatformPriceClient(BlockingPlatformPriceClient.jDong(jDongPool), 500, 4, 16),
+                new ResilientPlatformPriceClient(sickPdd, pddBreaker, 4, 16)));
+
+        // step 3: 连续比价，熔断后拼多多立即返回降级结果，比价耗时回到健康平台的水平
+        for (int i = 0; i < 6; i++) {
+            long start = System.currentTimeMillis();
+            PriceResult priceResult = service.getCheapestPlatformPriceAsync("iPhone14").join();
+            long end = System.currentTimeMillis();
+            System.out.printf("round %d cost %dms, pdd circuit %s, result = %s\n",
+                    i, end - start, pddBreaker.getState(), priceResult);
+        }
+
+        service.close();
+        taoBaoPool.shutdown();
+        jDongPool.shutdown();
+        pddPool.shutdownNow();
+        HttpRequest.setMockLatencyMillis(1000);
+    }
+}
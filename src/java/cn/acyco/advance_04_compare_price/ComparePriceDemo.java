@@ -36,10 +36,21 @@ public class ComparePriceDemo {
         System.out.println("priceResult = " + priceResult);
         */
 
+        // 方案四测试：使用异步平台客户端，等待期间不占用线程
+        /*
+        long start = System.currentTimeMillis();
+        PriceResult priceResult = service.getCheapestPlatformPriceAsync("iPhone14").join();
+        long end = System.currentTimeMillis();
+        double costTime = (end - start) / 1000.0;
+        System.out.printf("cost %.2f second\n", costTime);
+        System.out.println("priceResult = " + priceResult);
+        */
+
         /**
          * 方案一：串行方式操作商品比价                consTime 6.19
          * 方案二：Future+线程池 提高了任务处理的并行性  costTime 2.19
          * 方案三：使用CompletableFuture进一步增强并行 costTime 1.10
+         * 可复现的对比数据（耗时、吞吐量、分配量）使用 advance_06_benchmark.StrategyBenchmark 测量
          */
 
         // 异步任务的批量操作
@@ -47,5 +58,8 @@ public class ComparePriceDemo {
         List<String> products = Arrays.asList("iPhone14黑色", "iPhone14白色", "iPhone14玫瑰红");
         PriceResult priceResult = service.batchComparePrice(products);
 
+        // 关闭比价服务，释放服务持有的线程池
+        service.close();
+
     }
 }
@@ -1,16 +1,113 @@
 package cn.acyco.advance_04_compare_price;
 
+import cn.acyco.utils.AsyncSemaphore;
+import cn.acyco.utils.AsyncLogger;
+import cn.acyco.utils.BatchingDispatcher;
 import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.CompletableFutures;
+import cn.acyco.utils.NamedThreadFactory;
+import cn.acyco.utils.StageMetrics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class ComparePriceService {
+public class ComparePriceService implements AutoCloseable {
+    // 默认线程池大小：方案三中一个商品有6个阻塞的平台调用，IO密集型任务参考值为 2 * Ncpu
+    private static final int DEFAULT_POOL_SIZE = Math.max(6, Runtime.getRuntime().availableProcessors() * 2);
+    // 方案二中每个平台结果的最长等待时间
+    private static final long FUTURE_TIMEOUT_MILLIS = 5000;
+    // 批量合并：每批最多100个商品，第一个商品到达后最多等待5ms
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final long BATCH_WINDOW_MILLIS = 5;
+    // 批量比价默认最多同时进行的 商品×平台 查询组数
+    private static final int DEFAULT_MAX_CONCURRENT_PLATFORM_CALLS = 50;
+
+    // 异步平台客户端
+    private final List<PlatformPriceClient> clients;
+    // 执行阻塞平台调用（HttpRequest）的线程池，整个服务生命周期内复用
+    private final ExecutorService executor;
+    // 线程池是否由服务创建，由服务创建的线程池在 close() 时关闭
+    private final boolean ownsExecutor;
+    // 各个异步阶段的排队时间和执行时间
+    private final StageMetrics metrics = new StageMetrics();
+    // 带统计的平台客户端，与 clients 一一对应：每个平台的阶段统计在注册时取得，比价时不再拼接阶段名、查找 Map
+    private final List<InstrumentedClient> instrumentedClients = new CopyOnWriteArrayList<>();
+    private final BiFunction<PriceResult, Integer, PriceResult> timedComputeRealPrice;
+    // 把单个商品的淘宝价格、优惠查询合并成批量查询
+    private final BatchingDispatcher<String, PriceResult> taoBaoPriceBatcher;
+    private final BatchingDispatcher<String, Integer> taoBaoDiscountBatcher;
+    // 批量比价中的 商品×平台 查询在整个服务内共用的并发上限，多个批次同时进行时也不会超过
+    private final AsyncSemaphore platformCallLimit;
+
+    public ComparePriceService() {
+        this(defaultClients());
+    }
+
+    // maxConcurrentPlatformCalls：批量比价时整个服务最多同时进行的 商品×平台 查询组数
+    public ComparePriceService(int maxConcurrentPlatformCalls) {
+        this(defaultClients(), newDefaultExecutor(), true, maxConcurrentPlatformCalls);
+    }
+
+    public ComparePriceService(ExecutorService executor) {
+        this(defaultClients(), executor);
+    }
+
+    public ComparePriceService(List<PlatformPriceClient> clients) {
+        this(clients, newDefaultExecutor(), true, DEFAULT_MAX_CONCURRENT_PLATFORM_CALLS);
+    }
+
+    public ComparePriceService(List<PlatformPriceClient> clients, ExecutorService executor) {
+        this(clients, executor, DEFAULT_MAX_CONCURRENT_PLATFORM_CALLS);
+    }
+
+    public ComparePriceService(List<PlatformPriceClient> clients, ExecutorService executor, int maxConcurrentPlatformCalls) {
+        this(clients, executor, false, maxConcurrentPlatformCalls);
+    }
+
+    private ComparePriceService(List<PlatformPriceClient> clients, ExecutorService executor, boolean ownsExecutor,
+                                int maxConcurrentPlatformCalls) {
+        this.clients = new CopyOnWriteArrayList<>(clients);
+        clients.forEach(client -> instrumentedClients.add(new InstrumentedClient(client, metrics)));
+        this.timedComputeRealPrice = metrics.timed("computeRealPrice", this::computeRealPrice);
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.platformCallLimit = new AsyncSemaphore(maxConcurrentPlatformCalls);
+        this.taoBaoPriceBatcher = new BatchingDispatcher<>(productNames -> CompletableFuture
+                .supplyAsync(() -> HttpRequest.getTaobaoPrices(productNames), executor), MAX_BATCH_SIZE, BATCH_WINDOW_MILLIS);
+        this.taoBaoDiscountBatcher = new BatchingDispatcher<>(productNames -> CompletableFuture
+                .supplyAsync(() -> HttpRequest.getTaoBaoDiscounts(productNames), executor), MAX_BATCH_SIZE, BATCH_WINDOW_MILLIS);
+    }
+
+    private static ExecutorService newDefaultExecutor() {
+        return Executors.newFixedThreadPool(DEFAULT_POOL_SIZE, new NamedThreadFactory("compare-price"));
+    }
+
+    private static List<PlatformPriceClient> defaultClients() {
+        return Arrays.asList(SimulatedPlatformPriceClient.taoBao(), SimulatedPlatformPriceClient.jDong(), SimulatedPlatformPriceClient.pdd());
+    }
+
+    public StageMetrics getMetrics() {
+        return metrics;
+    }
+
+    // 注册新的平台客户端，之后的比价会包含该平台
+    public void registerClient(PlatformPriceClient client) {
+        instrumentedClients.add(new InstrumentedClient(client, metrics));
+        clients.add(client);
+    }
+
     // 方案一：串行方式操作商品比价
 
     public PriceResult getCheapestPlatformPrice(String productName) {
@@ -35,21 +132,17 @@ public class ComparePriceService {
         // 计算最优的平台和价格
 //        Stream<PriceResult> stream = Stream.of(taoBaoPriceResult, jDongPriceResult, pddPriceResult);
 //        Optional<PriceResult> minOpt = stream.min(Comparator.comparing(priceRes -> {
-//            return priceRes.getRealPrice();
+//            return priceRes.realPrice();
 //        }));
 //        PriceResult result = minOpt.get();
 //        return result;
         return Stream.of(taoBaoPriceResult, jDongPriceResult, pddPriceResult)
-                .min(Comparator.comparing(PriceResult::getRealPrice))
+                .min(Comparator.comparingInt(PriceResult::realPrice))
                 .get();
     }
 
     // 使用Future+线程池增加并行
     public PriceResult getCheapestPlatformPrice2(String productName) {
-        // 线程池
-        ExecutorService executor = Executors.newFixedThreadPool(4);
-
-
         // 获取淘宝平台的商品价格和优惠
         Future<PriceResult> taoBaoFuture = executor.submit(() -> {
             PriceResult priceResult = HttpRequest.getTaobaoPrice(productName);
@@ -72,72 +165,260 @@ public class ComparePriceService {
             return this.computeRealPrice(priceResult, discount);
         });
 
-        // 计算最优的平台和价格
+        // 计算最优的平台和价格，所有平台共用同一个截止时间，等待时间不会累加
+        long deadline = System.currentTimeMillis() + FUTURE_TIMEOUT_MILLIS;
         return Stream.of(taoBaoFuture, JDongFuture, pddFuture)
-                .map(future -> {
-                    try {
-                        return future.get(5, TimeUnit.SECONDS);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        return null;
-                    } finally {
-                        executor.shutdown();
-                    }
-                })
+                .map(future -> getBeforeDeadline(future, deadline))
                 .filter(Objects::nonNull)
-                .min(Comparator.comparing(PriceResult::getRealPrice))
-                .get();
+                .min(Comparator.comparingInt(PriceResult::realPrice))
+                .orElseThrow(() -> new IllegalStateException("no platform returned a price for " + productName));
+    }
+
+    // 在截止时间前获取结果，超时或失败时取消任务、记录原因并返回 null
+    private PriceResult getBeforeDeadline(Future<PriceResult> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            CommonUtils.printTheadLog("获取平台价格超时");
+            return null;
+        } catch (ExecutionException e) {
+            CommonUtils.printTheadLog("获取平台价格失败：" + e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        }
     }
 
     // 使用CompletableFuture进一步增强并行
     public PriceResult getCheapestPlatformPrice3(String productName) {
         // 获取淘宝平台的商品价格和优惠
-        CompletableFuture<PriceResult> taoBaoCF = CompletableFuture
-                .supplyAsync(() -> HttpRequest.getTaobaoPrice(productName))
-                .thenCombine(CompletableFuture.supplyAsync(() -> HttpRequest.getTaoBaoDiscount(productName)), this::computeRealPrice);
+        CompletableFuture<PriceResult> taoBaoCF = metrics
+                .supplyAsync("淘宝.getPrice", () -> HttpRequest.getTaobaoPrice(productName), executor)
+                .thenCombine(metrics.supplyAsync("淘宝.getDiscount", () -> HttpRequest.getTaoBaoDiscount(productName), executor),
+                        timedComputeRealPrice);
 
         //  获取京东平台的商品价格和优惠
-        CompletableFuture<PriceResult> jDongCF = CompletableFuture
-                .supplyAsync(() -> HttpRequest.getJDongPrice(productName))
-                .thenCombine(CompletableFuture.supplyAsync(() -> HttpRequest.getJDongDiscount(productName)), this::computeRealPrice);
+        CompletableFuture<PriceResult> jDongCF = metrics
+                .supplyAsync("京东.getPrice", () -> HttpRequest.getJDongPrice(productName), executor)
+                .thenCombine(metrics.supplyAsync("京东.getDiscount", () -> HttpRequest.getJDongDiscount(productName), executor),
+                        timedComputeRealPrice);
 
         // 获取拼多多平台的商品价格和优惠
-        CompletableFuture<PriceResult> pddCF = CompletableFuture
-                .supplyAsync(() -> HttpRequest.getPDDPrice(productName))
-                .thenCombine(CompletableFuture.supplyAsync(() -> HttpRequest.getPDDDiscount(productName)), this::computeRealPrice);
+        CompletableFuture<PriceResult> pddCF = metrics
+                .supplyAsync("拼多多.getPrice", () -> HttpRequest.getPDDPrice(productName), executor)
+                .thenCombine(metrics.supplyAsync("拼多多.getDiscount", () -> HttpRequest.getPDDDiscount(productName), executor),
+                        timedComputeRealPrice);
 
         // 计算最优的平台和价格
         return Stream.of(taoBaoCF, jDongCF, pddCF)
                 .map(CompletableFuture::join)
-                .min(Comparator.comparing(PriceResult::getRealPrice))
+                .min(Comparator.comparingInt(PriceResult::realPrice))
                 .get();
     }
 
+    // 使用异步平台客户端，等待平台响应期间不占用线程
+    public CompletableFuture<PriceResult> getCheapestPlatformPriceAsync(String productName) {
+        // 获取各平台的商品价格和优惠
+        List<CompletableFuture<PriceResult>> platformCFs = instrumentedClients.stream()
+                .map(client -> client.getRealPrice(productName, timedComputeRealPrice))
+                .collect(Collectors.toList());
+
+        // 计算最优的平台和价格：每个平台返回时立即参与比较
+        return CompletableFutures.minOf(platformCFs, PriceResult::realPrice);
+    }
+
+    /**
+     * 在限定时间内比价：返回在 timeout 内完成的平台中的最优价格，并标记超时或失败而被跳过的平台
+     * 超时由 completeOnTimeout 触发，不会有线程阻塞等待；超时后取消仍在进行的平台查询
+     */
+    public CompletableFuture<PartialPriceResult> getCheapestPlatformPriceWithin(String productName, long timeout, TimeUnit unit) {
+        // 获取各平台的商品价格和优惠，超时或失败的平台结果为 null
+        List<PlatformPriceClient> platformClients = List.copyOf(clients);
+        List<CompletableFuture<PriceResult>> platformCFs = platformClients.stream()
+                .map(client -> {
+                    CompletableFuture<PriceResult> priceCF = client.getPrice(productName);
+                    CompletableFuture<Integer> discountCF = client.getDiscount(productName);
+                    return priceCF.thenCombine(discountCF, this::computeRealPrice)
+                            .exceptionally(ex -> null)
+                            .completeOnTimeout(null, timeout, unit)
+                            .whenComplete((priceResult, ex) -> {
+                                priceCF.cancel(true);
+                                discountCF.cancel(true);
+                            });
+                })
+                .collect(Collectors.toList());
+
+        // 计算已返回平台中最优的平台和价格
+        CompletableFuture<?>[] platformCFArr = platformCFs.toArray(new CompletableFuture<?>[0]);
+        return CompletableFuture.allOf(platformCFArr).thenApply(v -> {
+            List<Platform> skippedPlatforms = new ArrayList<>();
+            PriceResult cheapest = null;
+            for (int i = 0; i < platformCFs.size(); i++) {
+                PriceResult priceResult = platformCFs.get(i).join();
+                if (priceResult == null) {
+                    skippedPlatforms.add(platformClients.get(i).getPlatform());
+                } else if (cheapest == null || priceResult.realPrice() < cheapest.realPrice()) {
+                    cheapest = priceResult;
+                }
+            }
+            return new PartialPriceResult(cheapest, skippedPlatforms);
+        });
+    }
+
+    // 关闭由服务创建的线程池：不再接收新任务，等待在途任务结束，超时后中断
+    @Override
+    public void close() {
+        if (!ownsExecutor) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(FUTURE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     // 计算商品的最终价格 = 平台价格 - 优惠价
     public PriceResult computeRealPrice(PriceResult priceResult, int discount) {
-        priceResult.setRealPrice(priceResult.getPrice() - discount);
-        priceResult.setDiscount(discount);
-        CommonUtils.printTheadLog(priceResult.getPlatform() + "最终价格计算完成" + priceResult.getRealPrice());
-        return priceResult;
+        PriceResult result = priceResult.withDiscount(discount);
+        AsyncLogger.log(result.platform(), "最终价格计算完成", result.realPrice());
+        return result;
+    }
+
+    /**
+     * 批量比价：获取每个商品在所有平台上的最优价格
+     * 商品 × 平台 的每一组价格+优惠查询受服务级的并发上限约束（见构造方法的 maxConcurrentPlatformCalls），
+     * 每个商品的所有平台都完成后立即回调 onProductCompared，不必等待整个批次结束
+     */
+    public CompletableFuture<Map<String, PriceResult>> batchCheapestPrice(List<String> products,
+                                                                         BiConsumer<String, PriceResult> onProductCompared) {
+        // step 1: 遍历每个商品，在每个平台上开启异步任务获取最终价，取该商品的最优价格
+        List<CompletableFuture<PriceResult>> productCFs = products.stream()
+                .map(productName -> {
+                    List<CompletableFuture<PriceResult>> platformCFs = instrumentedClients.stream()
+                            .map(client -> platformCallLimit.withPermit(() -> client.getRealPrice(productName, timedComputeRealPrice)))
+                            .collect(Collectors.toList());
+                    return CompletableFutures.minOf(platformCFs, PriceResult::realPrice)
+                            .whenComplete((priceResult, ex) -> {
+                                if (ex == null) {
+                                    onProductCompared.accept(productName, priceResult);
+                                }
+                            });
+                }).collect(Collectors.toList());
+
+        // step 2: 所有商品都完成后，按商品顺序归集结果
+        CompletableFuture<?>[] productCFArr = productCFs.toArray(new CompletableFuture<?>[0]);
+        return CompletableFuture.allOf(productCFArr).thenApply(v -> {
+            Map<String, PriceResult> results = new LinkedHashMap<>();
+            for (int i = 0; i < products.size(); i++) {
+                results.put(products.get(i), productCFs.get(i).join());
+            }
+            return results;
+        });
+    }
+
+    /**
+     * 批量比价的列式版本：每个商品的最优价格直接写入 PriceTable 的对应行，不创建结果 Map 和中间集合
+     * 同一商品的各平台结果用 thenCombine 两两比较，只保留更便宜的一个
+     */
+    public CompletableFuture<PriceTable> batchCheapestPriceTable(List<String> products) {
+        if (clients.isEmpty()) {
+            throw new IllegalStateException("no platform client registered");
+        }
+        PriceTable table = new PriceTable(products.size());
+        CompletableFuture<?>[] rowCFs = new CompletableFuture<?>[products.size()];
+        for (int row = 0; row < products.size(); row++) {
+            String productName = products.get(row);
+            CompletableFuture<PriceResult> cheapestCF = null;
+            for (PlatformPriceClient client : clients) {
+                CompletableFuture<PriceResult> platformCF = platformCallLimit.withPermit(() -> client.getPrice(productName)
+                        .thenCombine(client.getDiscount(productName), this::computeRealPrice));
+                cheapestCF = cheapestCF == null ? platformCF : cheapestCF.thenCombine(platformCF, ComparePriceService::cheaper);
+            }
+            // 每一行只由该商品的最后一个阶段写入，allOf 完成时所有写入对调用方可见
+            int tableRow = row;
+            rowCFs[row] = cheapestCF.thenAccept(priceResult -> table.set(tableRow, priceResult));
+        }
+        return CompletableFuture.allOf(rowCFs).thenApply(v -> table);
+    }
+
+    private static PriceResult cheaper(PriceResult a, PriceResult b) {
+        return b.realPrice() < a.realPrice() ? b : a;
     }
 
     public PriceResult batchComparePrice(List<String> products) {
+        if (products.isEmpty()) {
+            throw new NoSuchElementException("no products to compare");
+        }
         // step 1:遍历每个商品的名字， 根据商品名称开启异步任务获取最终价， 归集到List集合中
         List<CompletableFuture<PriceResult>> completableFutures = products.stream()
                 .map(productName -> {
-                    return CompletableFuture
-                            .supplyAsync(() -> HttpRequest.getTaobaoPrice(productName))
-                            .thenCombine(CompletableFuture.supplyAsync(() -> HttpRequest.getTaoBaoDiscount(productName)), (((priceResult, discount) -> {
+                    return metrics
+                            .supplyAsync("淘宝.getPrice", () -> HttpRequest.getTaobaoPrice(productName), executor)
+                            .thenCombine(metrics.supplyAsync("淘宝.getDiscount", () -> HttpRequest.getTaoBaoDiscount(productName), executor), (((priceResult, discount) -> {
                                 return this.computeRealPrice(priceResult, discount);
                             })));
 
                 }).collect(Collectors.toList());
-        // step 2: 把多个商品的最终价进行排序获取最小值
-        return completableFutures
-                .stream()
-                .map(CompletableFuture::join)
-                .sorted(Comparator.comparing(PriceResult::getRealPrice))
-                .findFirst()
-                .get();
+        // step 2: 每个商品的最终价计算完成时立即参与比较，取最小值，不需要排序
+        return CompletableFutures.minOf(completableFutures, PriceResult::realPrice).join();
+    }
+
+    /**
+     * 批量比价（合并请求）：与 batchComparePrice 相同，只查询淘宝平台，但每个商品的价格、优惠查询经过批量合并调度器，
+     * 同一时间窗口内的查询合并成一次批量请求，N 个商品只需要约 2 * N / MAX_BATCH_SIZE 次网络往返
+     */
+    public PriceResult batchComparePrice2(List<String> products) {
+        // step 1: 遍历每个商品，提交价格和优惠查询，由调度器合并成批量请求
+        List<CompletableFuture<PriceResult>> completableFutures = products.stream()
+                .map(productName -> taoBaoPriceBatcher.get(productName)
+                        .thenCombine(taoBaoDiscountBatcher.get(productName), this::computeRealPrice))
+                .collect(Collectors.toList());
+        // step 2: 每个商品的最终价计算完成时立即参与比较，取最小值
+        return CompletableFutures.minOf(completableFutures, PriceResult::realPrice).join();
+    }
+
+    /**
+     * 所有商品在所有平台上最便宜的 k 个报价，按最终价从小到大排列
+     * 每个报价到达时放入大小为 k 的堆中，n 个报价的代价为 O(n log k)；最终价相同时按商品、平台的顺序排列
+     * 与 batchCheapestPrice 一样，商品 × 平台 的查询受服务级的并发上限约束
+     */
+    public CompletableFuture<List<PriceResult>> cheapestOffers(List<String> products, int k) {
+        List<CompletableFuture<PriceResult>> offerCFs = new ArrayList<>(products.size() * clients.size());
+        for (String productName : products) {
+            for (PlatformPriceClient client : clients) {
+                offerCFs.add(platformCallLimit.withPermit(() -> client.getPrice(productName)
+                        .thenCombine(client.getDiscount(productName), this::computeRealPrice)));
+            }
+        }
+        return CompletableFutures.minK(offerCFs, k, PriceResult::realPrice);
+    }
+
+    // 平台客户端及其价格、优惠查询阶段的统计
+    private static class InstrumentedClient {
+        private final PlatformPriceClient client;
+        private final StageMetrics metrics;
+        private final StageMetrics.StageStats priceStage;
+        private final StageMetrics.StageStats discountStage;
+
+        InstrumentedClient(PlatformPriceClient client, StageMetrics metrics) {
+            this.client = client;
+            this.metrics = metrics;
+            this.priceStage = metrics.asyncStage(client.getPlatform() + ".getPrice");
+            this.discountStage = metrics.asyncStage(client.getPlatform() + ".getDiscount");
+        }
+
+        // 获取价格和优惠并计算最终价，记录两个查询的耗时
+        CompletableFuture<PriceResult> getRealPrice(String productName, BiFunction<PriceResult, Integer, PriceResult> computeRealPrice) {
+            return metrics.timeAsync(priceStage, () -> client.getPrice(productName))
+                    .thenCombine(metrics.timeAsync(discountStage, () -> client.getDiscount(productName)), computeRealPrice);
+        }
     }
 }
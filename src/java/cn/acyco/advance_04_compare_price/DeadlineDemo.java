@@ -0,0 +1,31 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class DeadlineDemo {
+    public static void main(String[] args) {
+        // 需求：比价请求最多等待300毫秒，拼多多平台卡住时返回已有平台中的最优价格
+        ComparePriceService service = new ComparePriceService(Arrays.asList(
+                new SimulatedPlatformPriceClient(Platform.TAOBAO, 5199, 200, 100),
+                new SimulatedPlatformPriceClient(Platform.JDONG, 5299, 150, 200),
+                new SimulatedPlatformPriceClient(Platform.PDD, 5399, 5300, 60_000)));
+
+        long start = System.currentTimeMillis();
+        PartialPriceResult result = service.getCheapestPlatformPriceWithin("iPhone14", 300, TimeUnit.MILLISECONDS).join();
+        long end = System.currentTimeMillis();
+
+        double costTime = (end - start) / 1000.0;
+        System.out.printf("cost %.2f second\n", costTime);
+        System.out.println("result = " + result);
+
+        // 关闭比价服务
+        service.close();
+
+        /**
+         * 方案二中 future.get(5, TimeUnit.SECONDS) 逐个等待，等待时间会累加
+         * 方案三中 join() 没有超时，一个平台卡住整个请求就卡住
+         * completeOnTimeout 为所有平台设置同一个截止时间，到期后用已有的结果计算最优价格
+         */
+    }
+}
@@ -0,0 +1,44 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.CommonUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 比价服务执行阻塞平台调用的线程池策略
+ */
+public enum ExecutorStrategy {
+    // 公共的 ForkJoinPool，工作线程数约为 CPU核数 - 1，supplyAsync 不指定线程池时的默认选择
+    COMMON_POOL {
+        @Override
+        public ExecutorService create() {
+            return ForkJoinPool.commonPool();
+        }
+    },
+    // 固定大小的线程池，IO密集型任务参考值为 2 * Ncpu
+    FIXED_POOL {
+        @Override
+        public ExecutorService create() {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        }
+    },
+    // 每个任务一个虚拟线程（JDK 21+），阻塞调用只挂起廉价的虚拟线程；低版本JDK退化为每个任务一个平台线程
+    VIRTUAL_THREAD {
+        @Override
+        public ExecutorService create() {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                CommonUtils.printTheadLog("当前JDK不支持虚拟线程，使用 newCachedThreadPool 代替");
+                return Executors.newCachedThreadPool();
+            }
+        }
+    };
+
+    // 创建线程池，由调用方负责关闭（COMMON_POOL 的 shutdown 不会生效）
+    public abstract ExecutorService create();
+}
@@ -0,0 +1,36 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ExecutorStrategyDemo {
+    public static void main(String[] args) {
+        // 需求：对比不同线程池策略下批量比价的耗时
+        // 每个商品有2个阻塞1秒的平台调用，线程数越少，批量比价越需要排队
+        List<String> products = IntStream.range(0, 100)
+                .mapToObj(i -> "iPhone14-" + i)
+                .collect(Collectors.toList());
+
+        for (ExecutorStrategy strategy : ExecutorStrategy.values()) {
+            ExecutorService executor = strategy.create();
+            ComparePriceService service = new ComparePriceService(executor);
+
+            long start = System.currentTimeMillis();
+            PriceResult priceResult = service.batchComparePrice(products);
+            long end = System.currentTimeMillis();
+
+            double costTime = (end - start) / 1000.0;
+            System.out.printf("%s cost %.2f second\n", strategy, costTime);
+            System.out.println("priceResult = " + priceResult);
+
+            // 关闭线程池
+            executor.shutdown();
+        }
+
+        /**
+         * 虚拟线程模式下每个阻塞调用都有自己的线程，批量比价的耗时接近一次平台调用的耗时
+         */
+    }
+}
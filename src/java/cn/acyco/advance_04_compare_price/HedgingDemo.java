@@ -0,0 +1,53 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class HedgingDemo {
+
+    // 发出1000次比价请求，返回所有请求耗时的p99（毫秒）
+    public static long p99(ComparePriceService service) {
+        List<CompletableFuture<Long>> futures = IntStream.range(0, 1000)
+                .mapToObj(i -> {
+                    long start = System.currentTimeMillis();
+                    return service.getCheapestPlatformPriceAsync("iPhone14")
+                            .thenApply(priceResult -> System.currentTimeMillis() - start);
+                })
+                .collect(Collectors.toList());
+        long[] costTimes = futures.stream().mapToLong(CompletableFuture::join).sorted().toArray();
+        return costTimes[(int) (costTimes.length * 0.99) - 1];
+    }
+
+    public static void main(String[] args) {
+        // 需求：拼多多平台偶尔很慢（5%的请求耗时2秒），降低整个比价请求的尾延迟
+        Random random = new Random();
+        LongSupplier pddLatency = () -> random.nextInt(100) < 5 ? 2000 : 50;
+
+        // 方案一：不使用对冲请求
+        ComparePriceService service = new ComparePriceService(Arrays.asList(
+                new SimulatedPlatformPriceClient(Platform.TAOBAO, 5199, 200, 50),
+                new SimulatedPlatformPriceClient(Platform.JDONG, 5299, 150, 50),
+                new SimulatedPlatformPriceClient(Platform.PDD, 5399, 5300, pddLatency)));
+        System.out.println("without hedging p99 = " + p99(service) + "ms");
+        service.close();
+
+        // 方案二：拼多多的查询超过p90耗时（至少60ms）仍未返回时，发出对冲请求
+        HedgingPlatformPriceClient hedgingPdd = new HedgingPlatformPriceClient(
+                new SimulatedPlatformPriceClient(Platform.PDD, 5399, 5300, pddLatency), 0.9, 100, 60);
+        ComparePriceService hedgingService = new ComparePriceService(Arrays.asList(
+                new SimulatedPlatformPriceClient(Platform.TAOBAO, 5199, 200, 50),
+                new SimulatedPlatformPriceClient(Platform.JDONG, 5299, 150, 50),
+                hedgingPdd));
+        System.out.println("with hedging p99 = " + p99(hedgingService) + "ms");
+        System.out.printf("price hedge rate = %.3f, hedge wins = %d\n",
+                hedgingPdd.getPriceHedger().getHedgeRate(), hedgingPdd.getPriceHedger().getHedgeWinCount());
+        System.out.printf("discount hedge rate = %.3f, hedge wins = %d\n",
+                hedgingPdd.getDiscountHedger().getHedgeRate(), hedgingPdd.getDiscountHedger().getHedgeWinCount());
+        hedgingService.close();
+    }
+}
@@ -0,0 +1,43 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.Hedger;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 带对冲请求的平台客户端：价格和优惠查询超过各自耗时的分位数仍未返回时，再发出一次相同的查询，先到先得
+ */
+public class HedgingPlatformPriceClient implements PlatformPriceClient {
+    private final PlatformPriceClient delegate;
+    private final Hedger priceHedger;
+    private final Hedger discountHedger;
+
+    public HedgingPlatformPriceClient(PlatformPriceClient delegate, double percentile, long initialDelayMillis, long minDelayMillis) {
+        this.delegate = delegate;
+        this.priceHedger = new Hedger(percentile, initialDelayMillis, minDelayMillis);
+        this.discountHedger = new Hedger(percentile, initialDelayMillis, minDelayMillis);
+    }
+
+    @Override
+    public Platform getPlatform() {
+        return delegate.getPlatform();
+    }
+
+    @Override
+    public CompletableFuture<PriceResult> getPrice(String productName) {
+        return priceHedger.call(() -> delegate.getPrice(productName));
+    }
+
+    @Override
+    public CompletableFuture<Integer> getDiscount(String productName) {
+        return discountHedger.call(() -> delegate.getDiscount(productName));
+    }
+
+    public Hedger getPriceHedger() {
+        return priceHedger;
+    }
+
+    public Hedger getDiscountHedger() {
+        return discountHedger;
+    }
+}
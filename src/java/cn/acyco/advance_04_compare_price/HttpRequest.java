@@ -1,65 +1,114 @@
 package cn.acyco.advance_04_compare_price;
 
+import cn.acyco.utils.AsyncLogger;
 import cn.acyco.utils.CommonUtils;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
 public class HttpRequest {
+    // 模拟的网络耗时（毫秒），基准测试中可以调整
+    private static volatile long mockLatencyMillis = 1000;
+    // 每次调用的模拟耗时分布（毫秒），为 null 时固定为 mockLatencyMillis
+    private static volatile LongSupplier mockLatencyDistribution;
+    // PriceResult 不可变，各平台的价格只创建一次，所有请求共享
+    private static final PriceResult TAOBAO_PRICE = PriceResult.of(Platform.TAOBAO, 5199);
+    private static final PriceResult JDONG_PRICE = PriceResult.of(Platform.JDONG, 5299);
+    private static final PriceResult PDD_PRICE = PriceResult.of(Platform.PDD, 5399);
+
+    public static long getMockLatencyMillis() {
+        return mockLatencyMillis;
+    }
+
+    public static void setMockLatencyMillis(long latencyMillis) {
+        mockLatencyMillis = latencyMillis;
+        mockLatencyDistribution = null;
+    }
+
+    // 当前的模拟耗时分布，固定耗时时返回 null
+    public static LongSupplier getMockLatency() {
+        return mockLatencyDistribution;
+    }
+
+    // 每次调用从 latencyMillis 中取一个模拟耗时，压测中用来模拟长尾延迟
+    public static void setMockLatency(LongSupplier latencyMillis) {
+        mockLatencyDistribution = latencyMillis;
+    }
 
     private static void mockCostTimeOperation() {
-        CommonUtils.sleepSecond(1);
+        LongSupplier distribution = mockLatencyDistribution;
+        CommonUtils.sleepMillis(distribution == null ? mockLatencyMillis : distribution.getAsLong());
     }
 
     // 获取淘宝平台的商品价格
     public static PriceResult getTaobaoPrice(String productName) {
-        CommonUtils.printTheadLog("获取淘宝上" + productName + "价格");
+        AsyncLogger.log("获取淘宝上", productName, "价格");
         mockCostTimeOperation();
-        PriceResult priceResult = new PriceResult("淘宝");
-        priceResult.setPrice(5199);
-        CommonUtils.printTheadLog("获取淘宝上" + productName + "价格完成：5199");
-        return priceResult;
+        AsyncLogger.log("获取淘宝上", productName, "价格完成：5199");
+        return TAOBAO_PRICE;
     }
 
     // 获取淘宝平台的优惠
     public static int getTaoBaoDiscount(String productName) {
-        CommonUtils.printTheadLog("获取淘宝上" + productName + "优惠");
+        AsyncLogger.log("获取淘宝上", productName, "优惠");
         mockCostTimeOperation();
-        CommonUtils.printTheadLog("获取淘宝上" + productName + "优惠完成：-200");
+        AsyncLogger.log("获取淘宝上", productName, "优惠完成：-200");
         return 200;
     }
 
     // 获取京东平台的商品价格
     public static PriceResult getJDongPrice(String productName) {
-        CommonUtils.printTheadLog("获取京东上" + productName + "价格");
+        AsyncLogger.log("获取京东上", productName, "价格");
         mockCostTimeOperation();
-        PriceResult priceResult = new PriceResult("淘宝");
-        priceResult.setPrice(5299);
-        CommonUtils.printTheadLog("获取京东上" + productName + "价格完成：5299");
-        return priceResult;
+        AsyncLogger.log("获取京东上", productName, "价格完成：5299");
+        return JDONG_PRICE;
     }
 
     // 获取京东平台的优惠
     public static int getJDongDiscount(String productName) {
-        CommonUtils.printTheadLog("获取京东上" + productName + "优惠");
+        AsyncLogger.log("获取京东上", productName, "优惠");
         mockCostTimeOperation();
-        CommonUtils.printTheadLog("获取京东上" + productName + "优惠完成：-150");
+        AsyncLogger.log("获取京东上", productName, "优惠完成：-150");
         return 150;
     }
 
     // 获取拼多多平台的商品价格
     public static PriceResult getPDDPrice(String productName) {
-        CommonUtils.printTheadLog("获取拼多多上" + productName + "价格");
+        AsyncLogger.log("获取拼多多上", productName, "价格");
         mockCostTimeOperation();
-        PriceResult priceResult = new PriceResult("拼多多");
-        priceResult.setPrice(5399);
-        CommonUtils.printTheadLog("获取拼多多上" + productName + "价格完成：5399");
-        return priceResult;
+        AsyncLogger.log("获取拼多多上", productName, "价格完成：5399");
+        return PDD_PRICE;
     }
 
     // 获取拼多多平台的优惠
     public static int getPDDDiscount(String productName) {
-        CommonUtils.printTheadLog("获取拼多多上" + productName + "优惠");
+        AsyncLogger.log("获取拼多多上", productName, "优惠");
         mockCostTimeOperation();
-        CommonUtils.printTheadLog("获取拼多多上" + productName + "优惠完成：-5300");
+        AsyncLogger.log("获取拼多多上", productName, "优惠完成：-5300");
         return 5300;
     }
 
+    // 批量获取淘宝平台的商品价格，一批商品只花费一次网络耗时
+    public static Map<String, PriceResult> getTaobaoPrices(List<String> productNames) {
+        AsyncLogger.log("批量获取淘宝上", productNames.size(), "个商品的价格");
+        mockCostTimeOperation();
+        return batchOf(productNames, TAOBAO_PRICE);
+    }
+
+    // 批量获取淘宝平台的优惠
+    public static Map<String, Integer> getTaoBaoDiscounts(List<String> productNames) {
+        AsyncLogger.log("批量获取淘宝上", productNames.size(), "个商品的优惠");
+        mockCostTimeOperation();
+        return batchOf(productNames, 200);
+    }
+
+    private static <V> Map<String, V> batchOf(List<String> productNames, V value) {
+        Map<String, V> results = new HashMap<>();
+        for (String productName : productNames) {
+            results.put(productName, value);
+        }
+        return results;
+    }
 }
@@ -0,0 +1,38 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.AdaptiveConcurrencyLimiter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 自适应限流的平台客户端：价格和优惠查询共用同一个 {@link AdaptiveConcurrencyLimiter}，
+ * 发往该平台的在途查询数随平台的响应时间自动调整，不需要手工设定线程池大小
+ */
+public class LimitedPlatformPriceClient implements PlatformPriceClient {
+    private final PlatformPriceClient delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LimitedPlatformPriceClient(PlatformPriceClient delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Platform getPlatform() {
+        return delegate.getPlatform();
+    }
+
+    @Override
+    public CompletableFuture<PriceResult> getPrice(String productName) {
+        return limiter.call(() -> delegate.getPrice(productName));
+    }
+
+    @Override
+    public CompletableFuture<Integer> getDiscount(String productName) {
+        return limiter.call(() -> delegate.getDiscount(productName));
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
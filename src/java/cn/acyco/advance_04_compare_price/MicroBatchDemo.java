@@ -0,0 +1,34 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class MicroBatchDemo {
+    public static void main(String[] args) {
+        // 需求：比较1000个商品在淘宝上的最终价，每次网络往返100ms
+        HttpRequest.setMockLatencyMillis(100);
+        ComparePriceService service = new ComparePriceService();
+        List<String> products = IntStream.range(0, 1000)
+                .mapToObj(i -> "iPhone14-" + i)
+                .collect(Collectors.toList());
+
+        // 方案一：每个商品分别查询价格和优惠，2000次网络往返，受线程池大小限制
+        List<String> firstProducts = products.subList(0, 100);
+        long start = System.currentTimeMillis();
+        PriceResult priceResult = service.batchComparePrice(firstProducts);
+        long end = System.currentTimeMillis();
+        System.out.printf("batchComparePrice  %d products cost %.2f second, %s\n",
+                firstProducts.size(), (end - start) / 1000.0, priceResult);
+
+        // 方案二：合并请求，每批最多100个商品，1000个商品只需要20次网络往返
+        start = System.currentTimeMillis();
+        priceResult = service.batchComparePrice2(products);
+        end = System.currentTimeMillis();
+        System.out.printf("batchComparePrice2 %d products cost %.2f second, %s\n",
+                products.size(), (end - start) / 1000.0, priceResult);
+
+        service.close();
+        HttpRequest.setMockLatencyMillis(1000);
+    }
+}
@@ -0,0 +1,38 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.List;
+
+/**
+ * 在限定时间内的比价结果：已返回平台中的最优价格，以及超时或失败而被跳过的平台
+ */
+public class PartialPriceResult {
+    // 所有平台都被跳过时为 null
+    private final PriceResult priceResult;
+    private final List<Platform> skippedPlatforms;
+
+    public PartialPriceResult(PriceResult priceResult, List<Platform> skippedPlatforms) {
+        this.priceResult = priceResult;
+        this.skippedPlatforms = skippedPlatforms;
+    }
+
+    public PriceResult getPriceResult() {
+        return priceResult;
+    }
+
+    public List<Platform> getSkippedPlatforms() {
+        return skippedPlatforms;
+    }
+
+    // 是否所有平台都在限定时间内返回
+    public boolean isComplete() {
+        return skippedPlatforms.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "PartialPriceResult{" +
+                "最优价格=" + priceResult +
+                ", 跳过的平台=" + skippedPlatforms +
+                '}';
+    }
+}
@@ -0,0 +1,39 @@
+package cn.acyco.advance_04_compare_price;
+
+/**
+ * 电商平台
+ * <p>
+ * 平台是固定的一组值，用枚举代替字符串：比较时只比较引用，列式结果中用 {@link #getId()} 存成一个字节。
+ */
+public enum Platform {
+    TAOBAO("淘宝"),
+    JDONG("京东"),
+    PDD("拼多多"),
+    VIP("唯品会");
+
+    private static final Platform[] VALUES = values();
+
+    private final String displayName;
+
+    Platform(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    // 列式结果中使用的平台编号
+    public int getId() {
+        return ordinal();
+    }
+
+    public static Platform ofId(int id) {
+        return VALUES[id];
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,21 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 电商平台的价格客户端
+ * <p>
+ * 与 {@link HttpRequest} 的静态阻塞方法不同，这里直接返回 CompletableFuture，
+ * 基于定时器或 NIO 的实现在等待结果期间不需要占用线程。
+ */
+public interface PlatformPriceClient {
+
+    // 平台名称
+    Platform getPlatform();
+
+    // 获取平台的商品价格
+    CompletableFuture<PriceResult> getPrice(String productName);
+
+    // 获取平台的优惠
+    CompletableFuture<Integer> getDiscount(String productName);
+}
@@ -0,0 +1,30 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PlatformPriceClientDemo {
+    public static void main(String[] args) {
+        // 需求：同时查询1000个商品在3个平台上的最优价格
+        // 异步平台客户端用定时器模拟1秒的网络耗时，6000次并发查询只需要2个调度线程
+        ComparePriceService service = new ComparePriceService();
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<PriceResult>> futures = IntStream.range(0, 1000)
+                .mapToObj(i -> service.getCheapestPlatformPriceAsync("iPhone14-" + i))
+                .collect(Collectors.toList());
+        List<PriceResult> results = futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+        long end = System.currentTimeMillis();
+
+        double costTime = (end - start) / 1000.0;
+        System.out.printf("compared %d products cost %.2f second\n", results.size(), costTime);
+        System.out.println("priceResult = " + results.get(0));
+
+        // 关闭比价服务
+        service.close();
+    }
+}
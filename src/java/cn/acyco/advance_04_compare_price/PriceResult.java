@@ -1,55 +1,30 @@
 package cn.acyco.advance_04_compare_price;
 
-public class PriceResult {
-    private int price;
-    private int discount;
-    private int realPrice;
-    private String platform;
+/**
+ * 平台的商品价格，不可变
+ * <p>
+ * 在线程之间传递时不需要额外同步；同一个平台的价格可以被所有调用方共享，不必每次查询都创建新对象。
+ */
+public record PriceResult(int price, int discount, int realPrice, Platform platform) {
 
-    public PriceResult() {
+    // 尚未计算优惠的平台价格
+    public static PriceResult of(Platform platform, int price) {
+        return new PriceResult(price, 0, price, platform);
     }
 
-    public PriceResult(String platform) {
-        this.platform = platform;
+    // 平台不可用时的降级结果，最终价为 Integer.MAX_VALUE，比价时不会被选中
+    public static PriceResult unavailable(Platform platform) {
+        return new PriceResult(Integer.MAX_VALUE, 0, Integer.MAX_VALUE, platform);
     }
 
-    public PriceResult(int price, int discount, int realPrice, String platform) {
-        this.price = price;
-        this.discount = discount;
-        this.realPrice = realPrice;
-        this.platform = platform;
+    // 是否为平台实际返回的价格
+    public boolean isAvailable() {
+        return price != Integer.MAX_VALUE;
     }
 
-    public int getPrice() {
-        return price;
-    }
-
-    public void setPrice(int price) {
-        this.price = price;
-    }
-
-    public int getDiscount() {
-        return discount;
-    }
-
-    public void setDiscount(int discount) {
-        this.discount = discount;
-    }
-
-    public int getRealPrice() {
-        return realPrice;
-    }
-
-    public void setRealPrice(int realPrice) {
-        this.realPrice = realPrice;
-    }
-
-    public String getPlatform() {
-        return platform;
-    }
-
-    public void setPlatform(String platform) {
-        this.platform = platform;
+    // 计算商品的最终价格 = 平台价格 - 优惠价，返回新的结果
+    public PriceResult withDiscount(int discount) {
+        return isAvailable() ? new PriceResult(price, discount, price - discount, platform) : this;
     }
 
     @Override
@@ -0,0 +1,86 @@
+package cn.acyco.advance_04_compare_price;
+
+import java.util.Arrays;
+
+/**
+ * 列式的批量比价结果：每个商品一行，平台价、优惠价、最终价、平台编号分别存放在并列的基本类型数组中
+ * <p>
+ * 一百万个商品只占用四个数组，不为每个商品创建 PriceResult；需要单个商品的结果时再通过 {@link #get(int)} 生成。
+ * 不同线程可以并发写入不同的行，写入完成后通过 CompletableFuture 的完成发布给读取方。
+ */
+public class PriceTable {
+    // 尚未写入的行
+    private static final byte NO_PLATFORM = -1;
+
+    private final int size;
+    private final int[] prices;
+    private final int[] discounts;
+    private final int[] realPrices;
+    private final byte[] platformIds;
+
+    public PriceTable(int size) {
+        this.size = size;
+        this.prices = new int[size];
+        this.discounts = new int[size];
+        this.realPrices = new int[size];
+        this.platformIds = new byte[size];
+        Arrays.fill(platformIds, NO_PLATFORM);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 写入第 row 行
+    public void set(int row, Platform platform, int price, int discount) {
+        prices[row] = price;
+        discounts[row] = discount;
+        realPrices[row] = price - discount;
+        platformIds[row] = (byte) platform.getId();
+    }
+
+    public void set(int row, PriceResult priceResult) {
+        set(row, priceResult.platform(), priceResult.price(), priceResult.discount());
+    }
+
+    // 第 row 行是否已写入
+    public boolean isSet(int row) {
+        return platformIds[row] != NO_PLATFORM;
+    }
+
+    public int getPrice(int row) {
+        return prices[row];
+    }
+
+    public int getDiscount(int row) {
+        return discounts[row];
+    }
+
+    public int getRealPrice(int row) {
+        return realPrices[row];
+    }
+
+    // 第 row 行的平台，未写入时返回 null
+    public Platform getPlatform(int row) {
+        return isSet(row) ? Platform.ofId(platformIds[row]) : null;
+    }
+
+    // 第 row 行的 PriceResult，未写入时返回 null
+    public PriceResult get(int row) {
+        if (!isSet(row)) {
+            return null;
+        }
+        return new PriceResult(prices[row], discounts[row], realPrices[row], getPlatform(row));
+    }
+
+    // 最终价最低的行，没有任何行写入时返回 -1
+    public int cheapestRow() {
+        int cheapest = -1;
+        for (int row = 0; row < size; row++) {
+            if (isSet(row) && (cheapest < 0 || realPrices[row] < realPrices[cheapest])) {
+                cheapest = row;
+            }
+        }
+        return cheapest;
+    }
+}
@@ -0,0 +1,78 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.AsyncSemaphore;
+import cn.acyco.utils.CircuitBreaker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 带熔断和舱壁隔离的平台客户端
+ * <p>
+ * 价格和优惠查询共用同一个熔断器：平台持续失败或变慢时熔断，之后的查询不再发往该平台，立即返回降级结果；
+ * 舱壁限制该平台同时进行中的查询数，排队数超过 maxWaiting 时直接降级，一个平台变慢不会占满调用方的资源。
+ * 降级时价格为 {@link PriceResult#unavailable(Platform)}、优惠为 0，比价时不会被选中。
+ */
+public class ResilientPlatformPriceClient implements PlatformPriceClient {
+    private final PlatformPriceClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final AsyncSemaphore bulkhead;
+    // 进入舱壁（执行中 + 排队中）的调用数，上限为 maxConcurrentCalls + maxWaiting
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final int maxAdmitted;
+    private final PriceResult fallbackPrice;
+
+    public ResilientPlatformPriceClient(PlatformPriceClient delegate, CircuitBreaker circuitBreaker, int maxConcurrentCalls, int maxWaiting) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = new AsyncSemaphore(maxConcurrentCalls);
+        this.maxAdmitted = maxConcurrentCalls + maxWaiting;
+        this.fallbackPrice = PriceResult.unavailable(delegate.getPlatform());
+    }
+
+    // 默认熔断配置，慢调用阈值为 slowCallMillis
+    public ResilientPlatformPriceClient(PlatformPriceClient delegate, long slowCallMillis, int maxConcurrentCalls, int maxWaiting) {
+        this(delegate, new CircuitBreaker(delegate.getPlatform().name(), slowCallMillis), maxConcurrentCalls, maxWaiting);
+    }
+
+    @Override
+    public Platform getPlatform() {
+        return delegate.getPlatform();
+    }
+
+    @Override
+    public CompletableFuture<PriceResult> getPrice(String productName) {
+        return guarded(() -> delegate.getPrice(productName), fallbackPrice);
+    }
+
+    @Override
+    public CompletableFuture<Integer> getDiscount(String productName) {
+        return guarded(() -> delegate.getDiscount(productName), 0);
+    }
+
+    // 先检查熔断和舱壁，都允许时在舱壁许可内经过熔断器调用下游，被拒绝或失败时返回降级结果
+    private <T> CompletableFuture<T> guarded(Supplier<CompletableFuture<T>> call, T fallback) {
+        // 熔断时不进入舱壁排队，立即降级
+        if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            return CompletableFuture.completedFuture(fallback);
+        }
+        // 先占用一个名额再进入舱壁，检查和占用是同一个原子操作，并发时排队数也不会超过 maxWaiting
+        if (admitted.incrementAndGet() > maxAdmitted) {
+            admitted.decrementAndGet();
+            return CompletableFuture.completedFuture(fallback);
+        }
+        // 排队时间不计入熔断器的耗时统计
+        return bulkhead.withPermit(() -> circuitBreaker.call(call))
+                .whenComplete((value, ex) -> admitted.decrementAndGet())
+                .exceptionally(ex -> fallback);
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public AsyncSemaphore getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,107 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.AsyncLogger;
+import cn.acyco.utils.NamedThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 模拟的非阻塞平台客户端
+ * <p>
+ * 用 ScheduledExecutorService 的延时任务代替 {@link HttpRequest} 中的 Thread.sleep，
+ * 等待期间不占用任何线程，少量调度线程即可支撑成千上万个并发查询。
+ */
+public class SimulatedPlatformPriceClient implements PlatformPriceClient {
+    // 默认的调度线程池，守护线程，不阻止JVM退出
+    private static final ScheduledExecutorService DEFAULT_SCHEDULER =
+            Executors.newScheduledThreadPool(2, new NamedThreadFactory("price-client-scheduler", true));
+
+    private final Platform platform;
+    // 平台价格不随商品变化，创建一次后所有查询共享
+    private final PriceResult priceResult;
+    private final int discount;
+    // 每次调用的模拟耗时（毫秒）
+    private final LongSupplier latencyMillis;
+    private final ScheduledExecutorService scheduler;
+    // 日志前缀，避免每次调用都拼接平台名
+    private final String logPrefix;
+
+    public SimulatedPlatformPriceClient(Platform platform, int price, int discount, long latencyMillis) {
+        this(platform, price, discount, () -> latencyMillis, DEFAULT_SCHEDULER);
+    }
+
+    public SimulatedPlatformPriceClient(Platform platform, int price, int discount, LongSupplier latencyMillis) {
+        this(platform, price, discount, latencyMillis, DEFAULT_SCHEDULER);
+    }
+
+    public SimulatedPlatformPriceClient(Platform platform, int price, int discount, LongSupplier latencyMillis, ScheduledExecutorService scheduler) {
+        this.platform = platform;
+        this.priceResult = PriceResult.of(platform, price);
+        this.discount = discount;
+        this.latencyMillis = latencyMillis;
+        this.scheduler = scheduler;
+        this.logPrefix = "获取" + platform + "上";
+    }
+
+    // 与 HttpRequest 中淘宝的数据和耗时一致
+    public static SimulatedPlatformPriceClient taoBao() {
+        return new SimulatedPlatformPriceClient(Platform.TAOBAO, 5199, 200, 1000);
+    }
+
+    // 与 HttpRequest 中京东的数据和耗时一致
+    public static SimulatedPlatformPriceClient jDong() {
+        return new SimulatedPlatformPriceClient(Platform.JDONG, 5299, 150, 1000);
+    }
+
+    // 与 HttpRequest 中拼多多的数据和耗时一致
+    public static SimulatedPlatformPriceClient pdd() {
+        return new SimulatedPlatformPriceClient(Platform.PDD, 5399, 5300, 1000);
+    }
+
+    @Override
+    public Platform getPlatform() {
+        return platform;
+    }
+
+    @Override
+    public CompletableFuture<PriceResult> getPrice(String productName) {
+        AsyncLogger.log(logPrefix, productName, "价格");
+        return delay(() -> {
+            AsyncLogger.log(logPrefix, productName, "价格完成：", priceResult.price());
+            return priceResult;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> getDiscount(String productName) {
+        AsyncLogger.log(logPrefix, productName, "优惠");
+        return delay(() -> {
+            AsyncLogger.log(logPrefix, productName, "优惠完成：-", discount);
+            return discount;
+        });
+    }
+
+    // 延时模拟耗时后在调度线程中完成；结果被取消时，同时取消尚未执行的延时任务
+    private <T> CompletableFuture<T> delay(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ScheduledFuture<?> scheduled = scheduler.schedule(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }, latencyMillis.getAsLong(), TimeUnit.MILLISECONDS);
+        future.whenComplete((result, ex) -> {
+            if (future.isCancelled()) {
+                scheduled.cancel(false);
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,36 @@
+package cn.acyco.advance_04_compare_price;
+
+import cn.acyco.utils.NamedThreadFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class StageMetricsDemo {
+    public static void main(String[] args) {
+        // 需求：找出比价链路中的时间花在了哪里——是排队等线程，还是平台本身慢
+        HttpRequest.setMockLatencyMillis(100);
+
+        // step 1: 方案三使用一个只有2个线程的线程池，6个平台调用中有4个需要排队
+        ExecutorService executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("small-pool"));
+        ComparePriceService service = new ComparePriceService(Arrays.asList(
+                new SimulatedPlatformPriceClient(Platform.TAOBAO, 5199, 200, 50),
+                new SimulatedPlatformPriceClient(Platform.JDONG, 5299, 150, 80),
+                new SimulatedPlatformPriceClient(Platform.PDD, 5399, 5300, 120)), executor);
+        for (int i = 0; i < 10; i++) {
+            service.getCheapestPlatformPrice3("iPhone14");
+        }
+
+        // step 2: 异步平台客户端，京东、拼多多的响应更慢
+        for (int i = 0; i < 100; i++) {
+            service.getCheapestPlatformPriceAsync("iPhone14").join();
+        }
+
+        // step 3: 导出每个阶段的 p50/p99/max
+        System.out.println(service.getMetrics().report());
+
+        service.close();
+        executor.shutdown();
+        HttpRequest.setMockLatencyMillis(1000);
+    }
+}
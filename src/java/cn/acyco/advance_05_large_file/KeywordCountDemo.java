@@ -0,0 +1,49 @@
+package cn.acyco.advance_05_large_file;
+
+import cn.acyco.utils.CommonUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+public class KeywordCountDemo {
+    public static void main(String[] args) throws IOException {
+        // 需求：统计目录下成千上万个文件中包含CompletableFuture关键字的文件的个数
+        // allOf 需要把所有文件内容都留在内存中直到最后一个文件读完，这里改为流式统计
+
+        // step 1: 准备一个包含3000个文件的目录，内容轮流取自news1.txt,news2.txt,news3.txt
+        List<String> fileList = Arrays.asList("news1.txt", "news2.txt", "news3.txt");
+        Path dir = Files.createTempDirectory("news");
+        for (int i = 0; i < 3000; i++) {
+            Files.copy(Path.of(fileList.get(i % fileList.size())), dir.resolve("news" + i + ".txt"));
+        }
+
+        // step 2: 同时最多读取16个文件，每读完1000个文件打印一次进度
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        StreamingKeywordCounter counter = new StreamingKeywordCounter("CompletableFuture", 16, executor);
+        CompletableFuture<Long> countFuture = counter.count(dir, (processed, matched) -> {
+            if (processed % 1000 == 0) {
+                CommonUtils.printTheadLog("processed = " + processed + ", matched = " + matched);
+            }
+        });
+
+        // step 3: 主线程打印输出文件个数
+        Long count = countFuture.join();
+        System.out.println("count = " + count);
+
+        // 关闭线程池，清理临时目录
+        executor.shutdown();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,44 @@
+package cn.acyco.advance_05_large_file;
+
+import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.MappedTextFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.concurrent.CompletableFuture;
+
+public class MappedFileDemo {
+
+    // 统计文件中的字符数：逐块解码，每块用完即丢弃，堆上同时只有一块内容
+    public static long countChars(MappedTextFile file) {
+        try (file) {
+            return file.chunks(8192).mapToLong(CharBuffer::length).sum();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) {
+        // 需求：扫描大文件时不把整个文件读入堆中，读取失败时异步任务以异常结束
+
+        // step 1: 异步映射news.txt，按块解码统计字符数
+        CompletableFuture<Long> countFuture = CommonUtils.mapFileAsync("news.txt")
+                .thenApply(MappedFileDemo::countChars);
+        CommonUtils.printTheadLog("news.txt 字符数：" + countFuture.join());
+
+        // step 2: 文件不存在时，异常沿回调链传递，而不是得到一个空字符串
+        CompletableFuture<Long> missingFuture = CommonUtils.mapFileAsync("missing.txt")
+                .thenApply(MappedFileDemo::countChars)
+                .exceptionally(ex -> {
+                    CommonUtils.printTheadLog("读取失败：" + ex.getCause());
+                    return -1L;
+                });
+        CommonUtils.printTheadLog("missing.txt 字符数：" + missingFuture.join());
+
+        /**
+         * readFile 出现异常时返回空字符串，调用方无法区分"文件为空"和"读取失败"
+         * mapFileAsync / readFileAsync 让 CompletableFuture 以 IOException 异常完成，可以用 exceptionally / handle 处理
+         */
+    }
+}
@@ -0,0 +1,46 @@
+package cn.acyco.advance_05_large_file;
+
+import cn.acyco.utils.CommonUtils;
+import cn.acyco.utils.SensitiveWordFilter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelFilterDemo {
+    public static void main(String[] args) {
+        // 需求：对超大的新闻稿做敏感词替换，利用多核把单线程的过滤拆成多个并行的异步任务
+
+        // step 1: 构建敏感词过滤器，并把news.txt重复拼接成一篇大文档
+        SensitiveWordFilter filter = SensitiveWordFilter.of(CommonUtils.readFile("filter_words.txt").split(","));
+        String news = CommonUtils.readFile("news.txt");
+        String bigNews = news.repeat(2_000_000);
+        CommonUtils.printTheadLog("文档长度：" + bigNews.length());
+
+        // step 2: 单线程过滤
+        long start = System.currentTimeMillis();
+        String filtered = filter.filter(bigNews);
+        long end = System.currentTimeMillis();
+        System.out.printf("single thread cost %.2f second\n", (end - start) / 1000.0);
+
+        // step 3: 分块并行过滤，线程池大小与CPU核数一致
+        int N_CPU = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(N_CPU);
+        start = System.currentTimeMillis();
+        CompletableFuture<String> filteredFuture = filter.filterAsync(bigNews, bigNews.length() / (N_CPU * 4) + 1, executor);
+        String parallelFiltered = filteredFuture.join();
+        end = System.currentTimeMillis();
+        System.out.printf("parallel cost %.2f second\n", (end - start) / 1000.0);
+
+        // step 4: 校验两种方式的结果一致
+        System.out.println("same result = " + filtered.equals(parallelFiltered));
+
+        // 关闭线程池
+        executor.shutdown();
+
+        /**
+         * 块与块之间重叠 (最长敏感词长度 - 1) 个字符，只保留结束位置落在本块内的命中，
+         * 因此跨越块边界的敏感词既不会被遗漏，也不会被重复替换
+         */
+    }
+}
@@ -0,0 +1,133 @@
+package cn.acyco.advance_05_large_file;
+
+import cn.acyco.utils.MappedTextFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 流式统计目录下包含关键字的文件个数
+ * <p>
+ * 与 allOf 等全部文件读完再统计不同：同时最多只有 maxInFlight 个文件在读取，每个文件读完立即判断并丢弃内容，
+ * 找到第一个关键字就停止读取该文件，并通过 {@link ProgressListener} 实时报告进度。
+ */
+public class StreamingKeywordCounter {
+    private static final int CHUNK_CHARS = 8192;
+
+    private final String keyword;
+    private final int maxInFlight;
+    private final Executor executor;
+
+    public StreamingKeywordCounter(String keyword, int maxInFlight, Executor executor) {
+        if (keyword.isEmpty()) {
+            throw new IllegalArgumentException("keyword must not be empty");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.keyword = keyword;
+        this.maxInFlight = maxInFlight;
+        this.executor = executor;
+    }
+
+    // 进度回调：已处理的文件数、其中包含关键字的文件数
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long processed, long matched);
+    }
+
+    // 统计目录（含子目录）下包含关键字的文件个数，任意文件读取失败时以该异常结束
+    public CompletableFuture<Long> count(Path dir, ProgressListener listener) {
+        Stream<Path> files;
+        try {
+            files = Files.walk(dir).filter(Files::isRegularFile);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CountTask task = new CountTask(files.iterator(), listener);
+        task.result.whenComplete((count, ex) -> files.close());
+        for (int i = 0; i < maxInFlight; i++) {
+            task.launchNext();
+        }
+        return task.result;
+    }
+
+    // 判断文件是否包含关键字：逐块解码，相邻块之间保留 keyword.length() - 1 个字符，找到即停止
+    public boolean containsKeyword(Path file) {
+        try (MappedTextFile mappedFile = MappedTextFile.open(file)) {
+            StringBuilder window = new StringBuilder(CHUNK_CHARS + keyword.length());
+            return mappedFile.chunks(CHUNK_CHARS).anyMatch(chunk -> {
+                window.append(chunk);
+                boolean found = window.indexOf(keyword) >= 0;
+                window.delete(0, Math.max(0, window.length() - keyword.length() + 1));
+                return found;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private class CountTask {
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private final Iterator<Path> files;
+        private final ProgressListener listener;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong matched = new AtomicLong();
+
+        CountTask(Iterator<Path> files, ProgressListener listener) {
+            this.files = files;
+            this.listener = listener;
+        }
+
+        // 取出下一个文件并开始读取；没有剩余文件且没有在途读取时结束统计
+        void launchNext() {
+            Path file;
+            synchronized (files) {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    if (!files.hasNext()) {
+                        if (inFlight.get() == 0) {
+                            result.complete(matched.get());
+                        }
+                        return;
+                    }
+                    file = files.next();
+                } catch (RuntimeException e) {
+                    // Files.walk 遍历目录出错时抛出 UncheckedIOException
+                    result.completeExceptionally(e);
+                    return;
+                }
+                inFlight.incrementAndGet();
+            }
+            // 回调使用异步版本，避免已完成的任务在同一个线程里层层递归
+            CompletableFuture.supplyAsync(() -> containsKeyword(file), executor)
+                    .whenCompleteAsync((found, ex) -> {
+                        try {
+                            if (ex != null) {
+                                result.completeExceptionally(ex);
+                                return;
+                            }
+                            long matchedCount = found ? matched.incrementAndGet() : matched.get();
+                            listener.onProgress(processed.incrementAndGet(), matchedCount);
+                        } catch (Throwable e) {
+                            // 进度回调抛出的异常同样结束统计，否则 result 永远不会完成
+                            result.completeExceptionally(e);
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                        launchNext();
+                    }, executor);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package cn.acyco.advance_06_benchmark;
+
+import cn.acyco.utils.AsyncLogger;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 简易基准测试执行器
+ * <p>
+ * 每个用例先预热若干轮，再正式测量若干轮，报告每轮的平均耗时、吞吐量，以及借助 HotSpot 线程分配计数得到的
+ * 每次操作分配字节数和测量期间的GC次数（相当于 JMH 的 -prof gc）。
+ * 测量期间 System.out 被替换成空输出，业务日志不会淹没测试结果；恢复 System.out 前会等待 {@link AsyncLogger} 输出完积压的日志。
+ * 日志开启时（默认 INFO），记录日志的开销计入耗时，后台线程格式化日志的分配也计入 alloc(B/op)；
+ * 只测量业务本身时使用 -Dcf.log.level=OFF 运行。
+ * <p>
+ * 分配量按线程统计：只包含两次采样时都存活的线程（以及测量期间新建、结束时仍存活的线程）在期间的分配，
+ * 测量期间结束的线程（例如缓存线程池回收的线程）的分配无法统计，虚拟线程也不在统计范围内，B/op 可能偏低。
+ */
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final PrintStream out = System.out;
+    private final List<Result> results = new ArrayList<>();
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+    }
+
+    /**
+     * 执行一个用例
+     *
+     * @param name             用例名称
+     * @param opsPerInvocation 每次调用 operation 完成的操作数（例如批量比价的商品数），用于计算吞吐量和每次操作的分配量
+     * @param operation        被测操作，返回值会被消费，避免被 JIT 消除
+     */
+    public Result run(String name, int opsPerInvocation, Callable<?> operation) throws Exception {
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                consume(operation.call());
+            }
+            // 预热产生的日志在测量开始前输出完，不计入测量期间的分配
+            AsyncLogger.flush();
+            long[] iterationNanos = new long[measurementIterations];
+            Map<Long, Long> allocatedBefore = threadAllocatedBytes();
+            long gcCountBefore = totalGcCount();
+            for (int i = 0; i < measurementIterations; i++) {
+                long start = System.nanoTime();
+                consume(operation.call());
+                iterationNanos[i] = System.nanoTime() - start;
+            }
+            // 测量期间产生的日志属于本次测量，等它们输出完再采样
+            AsyncLogger.flush();
+            long allocated = allocatedSince(allocatedBefore);
+            long gcCount = totalGcCount() - gcCountBefore;
+
+            Result result = new Result(name, opsPerInvocation, iterationNanos, allocated, gcCount);
+            results.add(result);
+            return result;
+        } finally {
+            // 先输出完积压的日志再恢复 System.out，否则日志会混进测试结果中
+            AsyncLogger.flush();
+            System.setOut(originalOut);
+        }
+    }
+
+    // 打印所有用例的结果
+    public void printResults() {
+        out.printf("%-40s %12s %12s %12s %14s %14s %8s%n",
+                "Benchmark", "avg(ms/op)", "min(ms/op)", "max(ms/op)", "thrpt(ops/s)", "alloc(B/op)", "gc");
+        for (Result result : results) {
+            out.printf("%-40s %12.2f %12.2f %12.2f %14.2f %14d %8d%n",
+                    result.name, result.averageMillisPerOp(), result.minMillisPerOp(), result.maxMillisPerOp(),
+                    result.throughput(), result.allocatedBytesPerOp(), result.gcCount);
+        }
+        if (AsyncLogger.isEnabled()) {
+            out.println("logging is enabled: time and alloc(B/op) include logging, run with -Dcf.log.level=OFF to exclude it");
+        }
+    }
+
+    private volatile Object sink;
+
+    private void consume(Object value) {
+        sink = value;
+    }
+
+    // 每个存活线程（线程id）累计分配的字节数，不支持统计时返回空 Map
+    private static Map<Long, Long> threadAllocatedBytes() {
+        Map<Long, Long> snapshot = new HashMap<>();
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return snapshot;
+        }
+        com.sun.management.ThreadMXBean hotspotThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        long[] threadIds = threadMXBean.getAllThreadIds();
+        long[] allocated = hotspotThreadMXBean.getThreadAllocatedBytes(threadIds);
+        for (int i = 0; i < threadIds.length; i++) {
+            // 采样期间已经结束的线程返回 -1
+            if (allocated[i] >= 0) {
+                snapshot.put(threadIds[i], allocated[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    // 从 before 采样到现在的分配量：按线程求差值，期间结束的线程不计入，不会因为线程结束而少减或出现负数
+    private static long allocatedSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : threadAllocatedBytes().entrySet()) {
+            total += Math.max(0, entry.getValue() - before.getOrDefault(entry.getKey(), 0L));
+        }
+        return total;
+    }
+
+    private static long totalGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gcBean.getCollectionCount());
+        }
+        return total;
+    }
+
+    public static class Result {
+        private final String name;
+        private final int opsPerInvocation;
+        private final long[] iterationNanos;
+        private final long allocatedBytes;
+        private final long gcCount;
+
+        Result(String name, int opsPerInvocation, long[] iterationNanos, long allocatedBytes, long gcCount) {
+            this.name = name;
+            this.opsPerInvocation = opsPerInvocation;
+            this.iterationNanos = iterationNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+        }
+
+        public double averageMillisPerOp() {
+            long total = 0;
+            for (long nanos : iterationNanos) {
+                total += nanos;
+            }
+            return total / 1e6 / iterationNanos.length / opsPerInvocation;
+        }
+
+        public double minMillisPerOp() {
+            long min = Long.MAX_VALUE;
+            for (long nanos : iterationNanos) {
+                min = Math.min(min, nanos);
+            }
+            return min / 1e6 / opsPerInvocation;
+        }
+
+        public double maxMillisPerOp() {
+            long max = 0;
+            for (long nanos : iterationNanos) {
+                max = Math.max(max, nanos);
+            }
+            return max / 1e6 / opsPerInvocation;
+        }
+
+        // 每秒完成的操作数
+        public double throughput() {
+            return 1000 / averageMillisPerOp();
+        }
+
+        public long allocatedBytesPerOp() {
+            return allocatedBytes / ((long) iterationNanos.length * opsPerInvocation);
+        }
+    }
+}
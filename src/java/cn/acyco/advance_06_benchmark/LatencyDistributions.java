@@ -0,0 +1,52 @@
+package cn.acyco.advance_06_benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * 模拟平台耗时（毫秒）的分布，用于 {@link cn.acyco.advance_04_compare_price.HttpRequest#setMockLatency}
+ * 和 {@link cn.acyco.advance_04_compare_price.SimulatedPlatformPriceClient}
+ */
+public class LatencyDistributions {
+
+    private LatencyDistributions() {
+    }
+
+    // 固定耗时
+    public static LongSupplier fixed(long millis) {
+        return () -> millis;
+    }
+
+    // 对数正态分布：中位数为 medianMillis，sigma 越大右侧的尾巴越长
+    public static LongSupplier logNormal(double medianMillis, double sigma) {
+        return () -> Math.round(medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    // 在 base 的基础上，以 tailProbability 的概率耗时 tailMillis（例如 GC 停顿、重传）
+    public static LongSupplier withHeavyTail(LongSupplier base, double tailProbability, long tailMillis) {
+        return () -> ThreadLocalRandom.current().nextDouble() < tailProbability ? tailMillis : base.getAsLong();
+    }
+
+    /**
+     * 解析分布描述：
+     * <ul>
+     *     <li>fixed:100 —— 固定 100ms</li>
+     *     <li>lognormal:100:0.5 —— 中位数 100ms、sigma 0.5 的对数正态分布</li>
+     *     <li>heavytail:100:0.5:0.01:2000 —— 上述对数正态分布，另有 1% 的调用耗时 2000ms</li>
+     * </ul>
+     */
+    public static LongSupplier parse(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "fixed":
+                return fixed(Long.parseLong(parts[1]));
+            case "lognormal":
+                return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            case "heavytail":
+                return withHeavyTail(logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2])),
+                        Double.parseDouble(parts[3]), Long.parseLong(parts[4]));
+            default:
+                throw new IllegalArgumentException("unknown latency distribution: " + spec);
+        }
+    }
+}
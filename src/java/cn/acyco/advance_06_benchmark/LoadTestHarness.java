@@ -0,0 +1,339 @@
+package cn.acyco.advance_06_benchmark;
+
+import cn.acyco.advance_04_compare_price.ComparePriceService;
+import cn.acyco.advance_04_compare_price.ExecutorStrategy;
+import cn.acyco.advance_04_compare_price.HttpRequest;
+import cn.acyco.advance_04_compare_price.Platform;
+import cn.acyco.advance_04_compare_price.PriceResult;
+import cn.acyco.advance_04_compare_price.SimulatedPlatformPriceClient;
+import cn.acyco.utils.AsyncLogger;
+import cn.acyco.utils.CompletableFutures;
+import cn.acyco.utils.LatencyHistogram;
+import cn.acyco.utils.NamedThreadFactory;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * ComparePriceService 的开环压测
+ * <p>
+ * 按设定的到达率发出比价请求，不等待上一个请求完成（开环），更接近线上真实流量；完全基于模拟的 HttpRequest 和平台客户端，可以离线运行。
+ * 每个请求的耗时从它"本应发出"的时间算起（coordinated omission 修正）：即使发压线程本身被拖慢，排队等待的时间也会计入延迟。
+ * <p>
+ * 参数以 key=value 形式传入，例如：strategies=future,sync,async rate=50 arrival=poisson duration=10 latency=heavytail:100:0.5:0.01:2000
+ * <ul>
+ *     <li>strategies：要压测的方案，future / sync / sync-virtual / async，默认全部</li>
+ *     <li>rate：每秒请求数，必须大于 0，默认 20</li>
+ *     <li>arrival：到达方式，constant（匀速）或 poisson（泊松过程），默认 poisson</li>
+ *     <li>duration：每个方案的压测时长（秒），必须大于 0，默认 10</li>
+ *     <li>products / skew：商品种类数，以及按 Zipf 分布选择商品的偏斜度（0 为均匀），默认 100 / 1.0</li>
+ *     <li>latency：平台耗时分布，见 {@link LatencyDistributions#parse}，默认 lognormal:100:0.5</li>
+ *     <li>pool：future / sync 方案的线程池大小，默认 2 * Ncpu（至少6）</li>
+ *     <li>timeout：单个请求的超时时间（毫秒），超时计为错误，并按超时时间计入延迟分布，默认 5000</li>
+ * </ul>
+ * threads 列是该方案的线程池（调用方线程池和比价线程池）创建的线程数；真正的虚拟线程无法统计，显示为 -1。
+ */
+public class LoadTestHarness {
+
+    // 压测的比价方案
+    enum Strategy {
+        // getCheapestPlatformPrice2：Future + 固定线程池
+        FUTURE("future") {
+            @Override
+            CompletableFuture<PriceResult> send(ComparePriceService service, String productName, ExecutorService callers) {
+                return CompletableFuture.supplyAsync(() -> service.getCheapestPlatformPrice2(productName), callers);
+            }
+        },
+        // getCheapestPlatformPrice3：CompletableFuture + 固定线程池
+        SYNC("sync") {
+            @Override
+            CompletableFuture<PriceResult> send(ComparePriceService service, String productName, ExecutorService callers) {
+                return CompletableFuture.supplyAsync(() -> service.getCheapestPlatformPrice3(productName), callers);
+            }
+        },
+        // getCheapestPlatformPrice3：CompletableFuture + 虚拟线程（不支持时退化为 newCachedThreadPool）
+        SYNC_VIRTUAL("sync-virtual") {
+            @Override
+            CompletableFuture<PriceResult> send(ComparePriceService service, String productName, ExecutorService callers) {
+                return CompletableFuture.supplyAsync(() -> service.getCheapestPlatformPrice3(productName), callers);
+            }
+
+            @Override
+            ExecutorService createExecutor(int poolSize, CountingThreadFactory threadFactory) {
+                ExecutorService executor = ExecutorStrategy.VIRTUAL_THREAD.create();
+                if (executor instanceof ThreadPoolExecutor) {
+                    // 不支持虚拟线程时退化成的 newCachedThreadPool，换成计数的线程工厂
+                    ((ThreadPoolExecutor) executor).setThreadFactory(threadFactory);
+                } else {
+                    threadFactory.markUncountable();
+                }
+                return executor;
+            }
+        },
+        // getCheapestPlatformPriceAsync：非阻塞平台客户端
+        ASYNC("async") {
+            @Override
+            CompletableFuture<PriceResult> send(ComparePriceService service, String productName, ExecutorService callers) {
+                return service.getCheapestPlatformPriceAsync(productName);
+            }
+        };
+
+        private final String optionName;
+
+        Strategy(String optionName) {
+            this.optionName = optionName;
+        }
+
+        // 发出一次比价请求；阻塞的方案在 callers（模拟接收请求的容器线程）中执行，不阻塞发压线程
+        abstract CompletableFuture<PriceResult> send(ComparePriceService service, String productName, ExecutorService callers);
+
+        ExecutorService createExecutor(int poolSize, CountingThreadFactory threadFactory) {
+            return Executors.newFixedThreadPool(poolSize, threadFactory);
+        }
+
+        static Strategy of(String optionName) {
+            return Arrays.stream(values())
+                    .filter(strategy -> strategy.optionName.equals(optionName))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unknown strategy: " + optionName));
+        }
+    }
+
+    /**
+     * 按 Zipf 分布选择商品：第 i 个商品被选中的概率与 1 / (i + 1)^skew 成正比，少数热门商品占大部分请求
+     */
+    static class ProductMix {
+        private final String[] products;
+        private final double[] cumulative;
+        private final Random random;
+
+        ProductMix(int productCount, double skew, long seed) {
+            this.products = new String[productCount];
+            this.cumulative = new double[productCount];
+            this.random = new Random(seed);
+            double total = 0;
+            for (int i = 0; i < productCount; i++) {
+                products[i] = "iPhone14-" + i;
+                total += 1 / Math.pow(i + 1, skew);
+                cumulative[i] = total;
+            }
+            for (int i = 0; i < productCount; i++) {
+                cumulative[i] /= total;
+            }
+        }
+
+        String next() {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return products[Math.min(products.length - 1, index >= 0 ? index : -index - 1)];
+        }
+    }
+
+    // 记录创建了多少个线程的线程工厂，只统计当前方案自己的线程池，不受其他方案残留线程的影响
+    static class CountingThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate;
+        private final AtomicInteger created = new AtomicInteger();
+        private volatile boolean uncountable;
+
+        CountingThreadFactory(ThreadFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            created.incrementAndGet();
+            return delegate.newThread(runnable);
+        }
+
+        // 线程池不使用该工厂创建线程（例如虚拟线程），无法统计
+        void markUncountable() {
+            uncountable = true;
+        }
+
+        // 创建的线程数，无法统计时返回 -1
+        int getCreated() {
+            return uncountable ? -1 : created.get();
+        }
+    }
+
+    // 一个方案的压测结果
+    static class Report {
+        final String strategy;
+        // 全部请求（含失败和超时）从本应发出的时间算起的耗时
+        final LatencyHistogram corrected = new LatencyHistogram();
+        // 成功请求从实际发出的时间算起的耗时
+        final LatencyHistogram uncorrected = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        long sent;
+        double elapsedSeconds;
+        int threads;
+
+        Report(String strategy) {
+            this.strategy = strategy;
+        }
+
+        void print() {
+            double ms = TimeUnit.MILLISECONDS.toNanos(1);
+            System.out.printf("%-13s %6d %6d %6d %9.1f | %8.1f %8.1f %8.1f %8.1f %8.1f | %8.1f | %7d%n",
+                    strategy, sent, ok.sum(), errors.sum(), ok.sum() / elapsedSeconds,
+                    corrected.getValueAtPercentile(50) / ms, corrected.getValueAtPercentile(90) / ms,
+                    corrected.getValueAtPercentile(99) / ms, corrected.getValueAtPercentile(99.9) / ms,
+                    corrected.getMax() / ms, uncorrected.getValueAtPercentile(99) / ms, threads);
+        }
+
+        static void printHeader() {
+            System.out.printf("%-13s %6s %6s %6s %9s | %8s %8s %8s %8s %8s | %8s | %7s%n",
+                    "strategy", "sent", "ok", "errors", "ok/s", "p50", "p90", "p99", "p99.9", "max", "raw p99", "threads");
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = StrategyBenchmark.parseOptions(args);
+        String[] strategyNames = options.getOrDefault("strategies", "future,sync,sync-virtual,async").split(",");
+        double rate = Double.parseDouble(options.getOrDefault("rate", "20"));
+        boolean poisson = options.getOrDefault("arrival", "poisson").equals("poisson");
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "10"));
+        int productCount = Integer.parseInt(options.getOrDefault("products", "100"));
+        double skew = Double.parseDouble(options.getOrDefault("skew", "1.0"));
+        String latencySpec = options.getOrDefault("latency", "lognormal:100:0.5");
+        int poolSize = Integer.parseInt(options.getOrDefault("pool",
+                String.valueOf(Math.max(6, Runtime.getRuntime().availableProcessors() * 2))));
+        long timeoutMillis = Long.parseLong(options.getOrDefault("timeout", "5000"));
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("rate must be a positive number: " + rate);
+        }
+        if (durationSeconds <= 0) {
+            throw new IllegalArgumentException("duration must be positive: " + durationSeconds);
+        }
+        System.out.printf("rate=%.1f/s arrival=%s duration=%ds products=%d skew=%.2f latency=%s pool=%d timeout=%dms%n",
+                rate, poisson ? "poisson" : "constant", durationSeconds, productCount, skew, latencySpec, poolSize, timeoutMillis);
+
+        LongSupplier latency = LatencyDistributions.parse(latencySpec);
+        // 压测结束后恢复原来的模拟耗时
+        long previousLatencyMillis = HttpRequest.getMockLatencyMillis();
+        LongSupplier previousLatency = HttpRequest.getMockLatency();
+        HttpRequest.setMockLatency(latency);
+
+        List<Report> reports = new ArrayList<>();
+        try {
+            for (String strategyName : strategyNames) {
+                Strategy strategy = Strategy.of(strategyName.trim());
+                reports.add(run(strategy, latency, rate, poisson, durationSeconds, new ProductMix(productCount, skew, 42),
+                        poolSize, timeoutMillis));
+            }
+        } finally {
+            HttpRequest.setMockLatencyMillis(previousLatencyMillis);
+            if (previousLatency != null) {
+                HttpRequest.setMockLatency(previousLatency);
+            }
+        }
+
+        System.out.println("latency in ms, p50..max over all requests (errors and timeouts included) corrected for coordinated omission, "
+                + "raw p99 over successful requests measured from actual send time, "
+                + "threads created by this strategy's own pools (-1 for real virtual threads)");
+        Report.printHeader();
+        reports.forEach(Report::print);
+    }
+
+    private static Report run(Strategy strategy, LongSupplier latency, double rate, boolean poisson, long durationSeconds,
+                              ProductMix productMix, int poolSize, long timeoutMillis) {
+        CountingThreadFactory executorThreads = new CountingThreadFactory(new NamedThreadFactory("compare-price"));
+        CountingThreadFactory callerThreads = new CountingThreadFactory(new NamedThreadFactory("load-caller", true));
+        ExecutorService executor = strategy.createExecutor(poolSize, executorThreads);
+        ExecutorService callers = Executors.newCachedThreadPool(callerThreads);
+        ComparePriceService service = new ComparePriceService(Arrays.asList(
+                new SimulatedPlatformPriceClient(Platform.TAOBAO, 5199, 200, latency),
+                new SimulatedPlatformPriceClient(Platform.JDONG, 5299, 150, latency),
+                new SimulatedPlatformPriceClient(Platform.PDD, 5399, 5300, latency)), executor);
+        Report report = new Report(strategy.optionName);
+
+        // 压测期间屏蔽业务日志，以及结束时中断积压任务打印的异常
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        PrintStream nullOut = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(nullOut);
+        System.setErr(nullOut);
+        try {
+            Random random = new Random(7);
+            double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+            long intendedStart = start;
+            while (intendedStart < end) {
+                long waitNanos = intendedStart - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                long scheduledAt = intendedStart;
+                long sentAt = System.nanoTime();
+                CompletableFuture<PriceResult> future;
+                try {
+                    future = strategy.send(service, productMix.next(), callers);
+                } catch (Throwable ex) {
+                    future = CompletableFuture.failedFuture(ex);
+                }
+                futures.add(future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((priceResult, ex) -> {
+                    long now = System.nanoTime();
+                    if (ex == null) {
+                        report.ok.increment();
+                        report.corrected.record(now - scheduledAt);
+                        report.uncorrected.record(now - sentAt);
+                    } else {
+                        // 失败和超时的请求同样计入延迟分布，超时的请求至少记为超时时间，否则百分位只反映了幸存者
+                        report.errors.increment();
+                        long elapsed = now - scheduledAt;
+                        if (CompletableFutures.unwrap(ex) instanceof TimeoutException) {
+                            elapsed = Math.max(elapsed, TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+                        }
+                        report.corrected.record(elapsed);
+                    }
+                }));
+                report.sent++;
+                // 下一个请求本应发出的时间：匀速到达为固定间隔，泊松到达的间隔服从指数分布
+                intendedStart += poisson
+                        ? (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos)
+                        : (long) meanIntervalNanos;
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).exceptionally(ex -> null).join();
+            report.elapsedSeconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+            int executorCreated = executorThreads.getCreated();
+            report.threads = executorCreated < 0 ? -1 : executorCreated + callerThreads.getCreated();
+        } finally {
+            // 超时的请求可能还在线程池中积压，直接中断，不影响下一个方案
+            service.close();
+            executor.shutdownNow();
+            callers.shutdownNow();
+            awaitTermination(executor);
+            awaitTermination(callers);
+            AsyncLogger.flush();
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+        return report;
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
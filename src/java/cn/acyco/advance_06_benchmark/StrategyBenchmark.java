@@ -0,0 +1,96 @@
+package cn.acyco.advance_06_benchmark;
+
+import cn.acyco.advance_03_parallelstream_complettablefuture.MyTask;
+import cn.acyco.advance_04_compare_price.ComparePriceService;
+import cn.acyco.advance_04_compare_price.ExecutorStrategy;
+import cn.acyco.advance_04_compare_price.HttpRequest;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 比价方案与 MyTask 并行方案的基准测试
+ * <p>
+ * 参数以 key=value 形式传入，例如：latency=100 tasks=10 products=3 pool=4 warmup=1 iterations=5
+ * <ul>
+ *     <li>latency：HttpRequest 和 MyTask 的模拟耗时（毫秒），默认 100</li>
+ *     <li>tasks：MyTask 的任务数，默认 10</li>
+ *     <li>products：批量比价的商品数，默认 3</li>
+ *     <li>pool：固定线程池的大小，默认 2 * Ncpu</li>
+ *     <li>warmup / iterations：预热轮数和测量轮数，默认 1 / 5</li>
+ * </ul>
+ */
+public class StrategyBenchmark {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        long latency = Long.parseLong(options.getOrDefault("latency", "100"));
+        int taskCount = Integer.parseInt(options.getOrDefault("tasks", "10"));
+        int productCount = Integer.parseInt(options.getOrDefault("products", "3"));
+        int poolSize = Integer.parseInt(options.getOrDefault("pool", String.valueOf(Runtime.getRuntime().availableProcessors() * 2)));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "1"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        System.out.printf("latency=%dms tasks=%d products=%d pool=%d warmup=%d iterations=%d%n",
+                latency, taskCount, productCount, poolSize, warmup, iterations);
+
+        HttpRequest.setMockLatencyMillis(latency);
+        List<String> products = IntStream.range(0, productCount)
+                .mapToObj(i -> "iPhone14-" + i)
+                .collect(Collectors.toList());
+        List<MyTask> tasks = IntStream.range(0, taskCount)
+                .mapToObj(i -> MyTask.ofMillis(latency))
+                .collect(Collectors.toList());
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations);
+        Map<String, ExecutorService> executors = new LinkedHashMap<>();
+        executors.put("commonPool", ForkJoinPool.commonPool());
+        executors.put("fixed(" + poolSize + ")", Executors.newFixedThreadPool(poolSize));
+        executors.put("virtual", ExecutorStrategy.VIRTUAL_THREAD.create());
+
+        // 商品比价：方案一、方案二
+        try (ComparePriceService service = new ComparePriceService()) {
+            runner.run("getCheapestPlatformPrice", 1, () -> service.getCheapestPlatformPrice("iPhone14"));
+            runner.run("getCheapestPlatformPrice2", 1, () -> service.getCheapestPlatformPrice2("iPhone14"));
+        }
+        // 商品比价：方案三、批量比价在不同线程池上的表现
+        for (Map.Entry<String, ExecutorService> entry : executors.entrySet()) {
+            ComparePriceService service = new ComparePriceService(entry.getValue());
+            runner.run("getCheapestPlatformPrice3/" + entry.getKey(), 1, () -> service.getCheapestPlatformPrice3("iPhone14"));
+            runner.run("batchComparePrice/" + entry.getKey(), productCount, () -> service.batchComparePrice(products));
+        }
+
+        // MyTask：串行、并行流、CompletableFuture
+        runner.run("MyTask/sequential", taskCount, () -> tasks.stream().map(MyTask::doWork).collect(Collectors.toList()));
+        runner.run("MyTask/parallelStream", taskCount, () -> tasks.parallelStream().map(MyTask::doWork).collect(Collectors.toList()));
+        for (Map.Entry<String, ExecutorService> entry : executors.entrySet()) {
+            runner.run("MyTask/completableFuture/" + entry.getKey(), taskCount, () -> tasks.stream()
+                    .map(task -> CompletableFuture.supplyAsync(task::doWork, entry.getValue()))
+                    .collect(Collectors.toList())
+                    .stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList()));
+        }
+
+        runner.printResults();
+        executors.values().forEach(ExecutorService::shutdown);
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("expected key=value but got: " + arg);
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        return options;
+    }
+}
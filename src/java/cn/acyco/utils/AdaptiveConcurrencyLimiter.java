@@ -0,0 +1,257 @@
+package cn.acyco.utils;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 自适应并发限制（AIMD）
+ * <p>
+ * 限制同时在途的异步调用数，上限不是固定值，而是根据下游的响应时间自动调整：
+ * <ul>
+ *     <li>响应时间不超过基准 RTT * tolerance 时加性增长：每完成约 limit 次调用，上限加 1</li>
+ *     <li>响应时间超过基准 RTT * tolerance 或调用失败时乘性减小：上限乘以 backoffRatio，每个基准 RTT 内最多减小一次</li>
+ * </ul>
+ * 基准 RTT 取最近一个采样窗口内的最小响应时间，下游整体变快或变慢后会随之更新。
+ * 超过上限的调用进入等待队列，队列满时立即以 {@link LimitExceededException} 拒绝（maxQueue 为 0 时不排队，直接丢弃）。
+ */
+public class AdaptiveConcurrencyLimiter {
+    // 每隔多少次采样重新确定一次基准 RTT
+    private static final int BASELINE_WINDOW = 256;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final double tolerance;
+    private final double backoffRatio;
+
+    private final Queue<Pending<?>> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    // 基准 RTT 及当前采样窗口内的最小 RTT
+    private long baselineRttNanos = Long.MAX_VALUE;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private long lastDecreaseNanos;
+    // 保证同一时刻只有一个线程在从队列中启动调用，避免同步完成的调用在回调中层层递归
+    private boolean draining;
+    private boolean redrain;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * @param initialLimit 初始并发上限
+     * @param minLimit     并发上限的下限
+     * @param maxLimit     并发上限的上限
+     * @param maxQueue     超过并发上限时最多排队的调用数
+     * @param tolerance    响应时间超过基准 RTT 多少倍时认为下游已经过载，例如 2.0
+     * @param backoffRatio 过载时并发上限乘以的系数，例如 0.9
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                      double tolerance, double backoffRatio) {
+        if (minLimit <= 0 || minLimit > maxLimit || maxQueue < 0) {
+            throw new IllegalArgumentException("require 0 < minLimit <= maxLimit and maxQueue >= 0");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    // 默认参数：初始上限10，范围 [1, 1000]，响应时间超过基准2倍时上限乘以0.9
+    public AdaptiveConcurrencyLimiter(int maxQueue) {
+        this(10, 1, 1000, maxQueue, 2.0, 0.9);
+    }
+
+    /**
+     * 在并发上限内执行异步调用：未达到上限时立即调用，否则排队等待，队列已满时立即拒绝。
+     * 排队中的调用被取消时立即移出队列，不再占用排队名额，也不会再发起。
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        Pending<T> pending = new Pending<>(call);
+        boolean admitted;
+        synchronized (this) {
+            admitted = queue.isEmpty() && inFlight < (int) limit;
+            if (admitted) {
+                inFlight++;
+            } else if (queue.size() < maxQueue) {
+                queue.add(pending);
+            } else {
+                rejected.increment();
+                return CompletableFuture.failedFuture(new LimitExceededException((int) limit));
+            }
+        }
+        if (admitted) {
+            start(pending);
+        } else {
+            pending.result.whenComplete((value, ex) -> {
+                if (pending.result.isCancelled()) {
+                    dequeue(pending);
+                }
+            });
+        }
+        return pending.result;
+    }
+
+    // 移除被调用方取消的排队调用；已经被 drain 取出的调用不在队列中，移除无效果
+    private synchronized void dequeue(Pending<?> pending) {
+        queue.remove(pending);
+    }
+
+    private <T> void start(Pending<T> pending) {
+        long startTime = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = pending.call.get();
+        } catch (Throwable ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        CompletableFuture<T> current = future;
+        pending.result.whenComplete((value, ex) -> {
+            if (pending.result.isCancelled()) {
+                current.cancel(true);
+            }
+        });
+        future.whenComplete((value, ex) -> {
+            if (current.isCancelled()) {
+                // 被取消的调用（对冲中落败、超时等）提前结束，它的 RTT 不反映下游快慢，只归还名额
+                release();
+            } else {
+                onComplete(System.nanoTime() - startTime, ex != null);
+            }
+            if (ex == null) {
+                pending.result.complete(value);
+            } else {
+                pending.result.completeExceptionally(CompletableFutures.unwrap(ex));
+            }
+            drain();
+        });
+    }
+
+    private synchronized void release() {
+        inFlight--;
+        completed.increment();
+    }
+
+    // 根据一次调用的响应时间和结果调整并发上限
+    private synchronized void onComplete(long rttNanos, boolean failed) {
+        inFlight--;
+        completed.increment();
+        if (!failed) {
+            windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+            if (baselineRttNanos == Long.MAX_VALUE) {
+                baselineRttNanos = rttNanos;
+            }
+            if (++windowSamples >= BASELINE_WINDOW) {
+                baselineRttNanos = windowMinRttNanos;
+                windowMinRttNanos = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+        }
+        long now = System.nanoTime();
+        if (failed || rttNanos > baselineRttNanos * tolerance) {
+            // 过载：每个基准 RTT 内最多减小一次，避免同一批慢调用连续减小上限
+            if (now - lastDecreaseNanos > Math.min(baselineRttNanos, rttNanos)) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlight + 1 >= (int) limit / 2) {
+            // 只有确实用到了一半以上的上限时才增长，空闲时上限不会无限增大
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    // 在并发上限内依次启动排队中的调用
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                redrain = true;
+                return;
+            }
+            draining = true;
+        }
+        while (true) {
+            Pending<?> next;
+            synchronized (this) {
+                next = null;
+                while (inFlight < (int) limit && !queue.isEmpty()) {
+                    Pending<?> candidate = queue.poll();
+                    if (!candidate.result.isDone()) {
+                        next = candidate;
+                        inFlight++;
+                        break;
+                    }
+                }
+                if (next == null) {
+                    if (redrain) {
+                        redrain = false;
+                        continue;
+                    }
+                    draining = false;
+                    return;
+                }
+            }
+            start(next);
+        }
+    }
+
+    // 当前的并发上限
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    // 基准 RTT（毫秒），尚无采样时为 0
+    public synchronized double getBaselineRttMillis() {
+        return baselineRttNanos == Long.MAX_VALUE ? 0 : baselineRttNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    // 因队列已满被拒绝的调用数
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    // 已完成的调用数
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    private static class Pending<T> {
+        final Supplier<CompletableFuture<T>> call;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Pending(Supplier<CompletableFuture<T>> call) {
+            this.call = call;
+        }
+    }
+
+    /**
+     * 超过并发上限且队列已满时的拒绝异常，不填充堆栈
+     */
+    public static class LimitExceededException extends RejectedExecutionException {
+        private static final long serialVersionUID = 1L;
+
+        public LimitExceededException(int limit) {
+            super("concurrency limit " + limit + " exceeded", null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
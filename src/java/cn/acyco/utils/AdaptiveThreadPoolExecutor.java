@@ -0,0 +1,125 @@
+package cn.acyco.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 根据任务的等待/计算时间比自动调整线程数的线程池
+ * <p>
+ * 每个任务执行时统计它的墙钟时间和线程CPU时间，差值视为等待时间 W（IO、sleep、锁），CPU时间视为计算时间 C，
+ * 定期按 N_threads = N_cpu * U * (1 + W/C) 计算目标线程数，并在 [minThreads, maxThreads] 范围内调整核心线程数。
+ * IO密集型任务 W/C 很大，线程数会增长；CPU密集型任务 W/C 接近0，线程数回落到接近CPU核数。
+ */
+public class AdaptiveThreadPoolExecutor extends ThreadPoolExecutor {
+    private static final int N_CPU = Runtime.getRuntime().availableProcessors();
+    // W/C 的平滑系数，新窗口的权重
+    private static final double SMOOTHING = 0.5;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final ThreadLocal<long[]> taskStart = ThreadLocal.withInitial(() -> new long[2]);
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+    private final ScheduledExecutorService resizer;
+    private final int minThreads;
+    private final int maxThreads;
+    private final double targetUtilization;
+    private volatile double waitComputeRatio;
+
+    /**
+     * @param minThreads        线程数下限
+     * @param maxThreads        线程数上限
+     * @param targetUtilization 期望的CPU利用率 U，取值 (0, 1]
+     * @param resizeIntervalMillis 调整线程数的间隔
+     */
+    public AdaptiveThreadPoolExecutor(int minThreads, int maxThreads, double targetUtilization, long resizeIntervalMillis) {
+        super(minThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("adaptive-pool"));
+        if (minThreads <= 0 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("invalid thread bounds: [" + minThreads + ", " + maxThreads + "]");
+        }
+        if (targetUtilization <= 0 || targetUtilization > 1) {
+            throw new IllegalArgumentException("targetUtilization must be in (0, 1]: " + targetUtilization);
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.targetUtilization = targetUtilization;
+        this.resizer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("adaptive-pool-resizer", true));
+        resizer.scheduleWithFixedDelay(this::resize, resizeIntervalMillis, resizeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable task) {
+        long[] start = taskStart.get();
+        start[0] = System.nanoTime();
+        start[1] = currentThreadCpuTime();
+        super.beforeExecute(thread, task);
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable ex) {
+        super.afterExecute(task, ex);
+        long[] start = taskStart.get();
+        long wall = System.nanoTime() - start[0];
+        long cpu = Math.min(wall, currentThreadCpuTime() - start[1]);
+        waitNanos.add(wall - cpu);
+        computeNanos.add(cpu);
+    }
+
+    // 按最近一个窗口的 W/C 重新计算目标线程数
+    private void resize() {
+        long wait = waitNanos.sumThenReset();
+        long compute = computeNanos.sumThenReset();
+        if (wait + compute == 0) {
+            return;
+        }
+        double ratio = (double) wait / Math.max(compute, 1);
+        waitComputeRatio = waitComputeRatio == 0 ? ratio : SMOOTHING * ratio + (1 - SMOOTHING) * waitComputeRatio;
+        int target = getTargetPoolSize();
+        if (target != getCorePoolSize()) {
+            setCorePoolSize(target);
+        }
+    }
+
+    private long currentThreadCpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    // 目标线程数 = N_cpu * U * (1 + W/C)，限制在 [minThreads, maxThreads] 范围内
+    public int getTargetPoolSize() {
+        double target = N_CPU * targetUtilization * (1 + waitComputeRatio);
+        return (int) Math.max(minThreads, Math.min(maxThreads, Math.round(target)));
+    }
+
+    // 平滑后的等待/计算时间比 W/C
+    public double getWaitComputeRatio() {
+        return waitComputeRatio;
+    }
+
+    // 排队等待执行的任务数
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    // 正在执行任务的线程数
+    public int getActiveWorkers() {
+        return getActiveCount();
+    }
+
+    @Override
+    public void shutdown() {
+        resizer.shutdown();
+        super.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        resizer.shutdownNow();
+        return super.shutdownNow();
+    }
+}
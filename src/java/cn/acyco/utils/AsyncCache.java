@@ -0,0 +1,109 @@
+package cn.acyco.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 缓存异步结果的 LRU 缓存
+ * <p>
+ * 缓存的是 CompletableFuture 而不是结果值：同一个 key 并发未命中时共享同一个在途的 future，只调用一次加载函数。
+ * 结果在完成后的 ttl 时间内有效，条目数超过 maxSize 时淘汰最久未访问的条目，加载失败的条目会被立即移除。
+ */
+public class AsyncCache<K, V> {
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AsyncCache(long ttl, TimeUnit unit, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取 key 对应的结果，未命中或已过期时调用 loader 加载。
+     * 返回的是共享 future 的副本，调用方取消它不会影响其他等待同一个 key 的调用方。
+     */
+    public CompletableFuture<V> get(K key, Function<K, CompletableFuture<V>> loader) {
+        Entry<V> entry;
+        synchronized (entries) {
+            Entry<V> cached = entries.get(key);
+            if (cached != null && !cached.isExpired(System.nanoTime())) {
+                hits.increment();
+                return cached.future.copy();
+            }
+            misses.increment();
+            entry = new Entry<>();
+            entries.put(key, entry);
+        }
+
+        // 在锁外加载，完成后开始计算有效期
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.apply(key);
+        } catch (Throwable ex) {
+            loaded = CompletableFuture.failedFuture(ex);
+        }
+        loaded.whenComplete((value, ex) -> {
+            if (ex != null) {
+                invalidate(key, entry);
+                entry.future.completeExceptionally(ex);
+            } else {
+                entry.expiresAt = System.nanoTime() + ttlNanos;
+                entry.future.complete(value);
+            }
+        });
+        return entry.future.copy();
+    }
+
+    // 移除 key 对应的条目
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    private void invalidate(K key, Entry<V> entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // 命中次数
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    // 未命中次数，即实际调用 loader 的次数
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private static class Entry<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        // 结果完成前为 Long.MAX_VALUE，在途的 future 永不过期
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+    }
+}
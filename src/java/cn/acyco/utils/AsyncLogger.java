@@ -0,0 +1,165 @@
+package cn.acyco.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志，输出格式与 {@link CommonUtils#printTheadLog(String)} 相同：当前时间 | 线程id | 线程名 | 日志信息
+ * <p>
+ * 业务线程只把记录的各个字段（时间戳、线程id、线程名、消息片段）写入无锁环形缓冲区，不做格式化也不竞争 System.out；
+ * 由一个后台线程批量格式化并一次性输出。消息可以分成多段传入，字符串拼接也推迟到后台线程完成。
+ * <p>
+ * 日志级别由系统属性 cf.log.level 指定（INFO / OFF，默认 INFO）。级别是 static final 常量，
+ * 设为 OFF 时 JIT 会把 log 调用整体消除，生产环境几乎没有开销。
+ */
+public final class AsyncLogger {
+    public enum Level {INFO, OFF}
+
+    public static final Level LEVEL = Level.valueOf(System.getProperty("cf.log.level", "INFO").toUpperCase());
+    private static final boolean ENABLED = LEVEL != Level.OFF;
+
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_PARTS = 4;
+    // 未使用的消息片段
+    private static final Object NONE = new Object();
+    private static final DateTimeFormatter TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("[HH:mm::ss.SS").withZone(ZoneId.systemDefault());
+
+    // 环形缓冲区：每个槽位的字段分别存放在并列的数组中，不为每条记录创建对象
+    private static final long[] timestamps = new long[CAPACITY];
+    private static final long[] threadIds = new long[CAPACITY];
+    private static final String[] threadNames = new String[CAPACITY];
+    private static final Object[] parts = new Object[CAPACITY * MAX_PARTS];
+    // 槽位已发布的序号 + 1，消费者据此判断槽位中的记录是否写完
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    // 下一个待申请的序号
+    private static final AtomicLong tail = new AtomicLong();
+    // 下一个待输出的序号，只有后台线程修改
+    private static volatile long head;
+    // 已经写到 System.out 的序号，晚于 head 更新：head 之前的槽位可以复用时，对应的日志可能还在输出
+    private static volatile long printed;
+
+    private static final Thread flusher;
+
+    static {
+        flusher = new Thread(AsyncLogger::flushLoop, "async-logger");
+        flusher.setDaemon(true);
+        if (ENABLED) {
+            flusher.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(AsyncLogger::flush, "async-logger-shutdown"));
+        }
+    }
+
+    private AsyncLogger() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // 打印输出带线程信息的日志
+    public static void log(String message) {
+        if (ENABLED) {
+            append(message, NONE, NONE, NONE);
+        }
+    }
+
+    // 打印输出带线程信息的日志，消息由各段依次拼接而成
+    public static void log(Object part1, Object part2) {
+        if (ENABLED) {
+            append(part1, part2, NONE, NONE);
+        }
+    }
+
+    public static void log(Object part1, Object part2, Object part3) {
+        if (ENABLED) {
+            append(part1, part2, part3, NONE);
+        }
+    }
+
+    public static void log(Object part1, Object part2, Object part3, Object part4) {
+        if (ENABLED) {
+            append(part1, part2, part3, part4);
+        }
+    }
+
+    // 等待此前写入的日志全部输出
+    public static void flush() {
+        if (!ENABLED) {
+            return;
+        }
+        long target = tail.get();
+        while (printed < target && flusher.isAlive()) {
+            LockSupport.unpark(flusher);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    private static void append(Object part1, Object part2, Object part3, Object part4) {
+        // 申请序号，缓冲区满时让出CPU等待后台线程腾出空间
+        long sequence = tail.getAndIncrement();
+        while (sequence - head >= CAPACITY) {
+            LockSupport.unpark(flusher);
+            Thread.yield();
+        }
+        int slot = (int) (sequence & MASK);
+        Thread thread = Thread.currentThread();
+        timestamps[slot] = System.currentTimeMillis();
+        threadIds[slot] = thread.getId();
+        threadNames[slot] = thread.getName();
+        int base = slot * MAX_PARTS;
+        parts[base] = part1;
+        parts[base + 1] = part2;
+        parts[base + 2] = part3;
+        parts[base + 3] = part4;
+        // 发布：此前对槽位的写入对读到该序号的消费者可见
+        published.set(slot, sequence + 1);
+    }
+
+    private static void flushLoop() {
+        StringBuilder batch = new StringBuilder(8192);
+        while (true) {
+            long next = head;
+            while (published.get((int) (next & MASK)) == next + 1) {
+                format((int) (next & MASK), batch);
+                next++;
+                head = next;
+                if (batch.length() >= 64 * 1024) {
+                    System.out.print(batch);
+                    batch.setLength(0);
+                    printed = next;
+                }
+            }
+            if (batch.length() > 0) {
+                System.out.print(batch);
+                batch.setLength(0);
+                printed = next;
+            } else {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private static void format(int slot, StringBuilder out) {
+        TIME_FORMATTER.formatTo(Instant.ofEpochMilli(timestamps[slot]), out);
+        long threadId = threadIds[slot];
+        out.append(" | ").append(threadId < 10 ? " " : "").append(threadId)
+                .append(" | ").append(threadNames[slot])
+                .append(" | ");
+        int base = slot * MAX_PARTS;
+        for (int i = base; i < base + MAX_PARTS; i++) {
+            if (parts[i] != NONE) {
+                out.append(parts[i]);
+            }
+            parts[i] = null;
+        }
+        threadNames[slot] = null;
+        out.append(System.lineSeparator());
+    }
+}
@@ -0,0 +1,77 @@
+package cn.acyco.utils;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 异步信号量
+ * <p>
+ * 与 {@link java.util.concurrent.Semaphore} 不同，获取许可时不阻塞线程，而是返回一个在拿到许可后完成的 CompletableFuture，
+ * 用来限制同时在途的异步任务数量。
+ */
+public class AsyncSemaphore {
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int permits;
+
+    public AsyncSemaphore(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        this.permits = permits;
+    }
+
+    // 获取一个许可，拿到许可时返回的 CompletableFuture 完成
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (permits > 0) {
+                permits--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    // 尝试立即获取一个许可
+    public synchronized boolean tryAcquire() {
+        if (permits > 0) {
+            permits--;
+            return true;
+        }
+        return false;
+    }
+
+    // 归还一个许可；有排队者时直接把许可转交给它
+    public void release() {
+        CompletableFuture<Void> waiter;
+        synchronized (this) {
+            waiter = waiters.poll();
+            if (waiter == null) {
+                permits++;
+                return;
+            }
+        }
+        // 在其他线程中唤醒排队者，避免同步完成的任务在当前线程中层层递归
+        waiter.completeAsync(() -> null);
+    }
+
+    // 拿到许可后执行异步任务，任务结束（无论成功失败）后归还许可
+    public <T> CompletableFuture<T> withPermit(Supplier<CompletableFuture<T>> task) {
+        return acquire()
+                .thenCompose(v -> task.get())
+                .whenComplete((result, ex) -> release());
+    }
+
+    // 当前可用的许可数
+    public synchronized int availablePermits() {
+        return permits;
+    }
+
+    // 排队等待许可的任务数
+    public synchronized int queueLength() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,135 @@
+package cn.acyco.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 批量合并调度器
+ * <p>
+ * 把短时间内到达的单个 key 查询合并成一次批量查询：第一个 key 到达后最多等待 windowMillis，
+ * 或者攒够 maxBatchSize 个不同的 key 时立即发出批量查询，批量结果返回后再分别完成每个调用方的 CompletableFuture。
+ * 同一批次中重复的 key 只查询一次。批量查询失败或返回 null 时，该批次所有调用方都以同一个异常结束；
+ * 批量结果中缺少某个 key 时，该 key 的调用方以 NoSuchElementException 结束。
+ */
+public class BatchingDispatcher<K, V> {
+    private final Function<List<K>, CompletableFuture<Map<K, V>>> batchLoader;
+    private final int maxBatchSize;
+    private final long windowMillis;
+
+    // 正在攒的批次，为 null 表示当前没有等待中的 key
+    private Batch<K, V> current;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * @param batchLoader  批量查询：传入一批不重复的 key，返回 key 到结果的映射
+     * @param maxBatchSize 每批最多多少个不同的 key
+     * @param windowMillis 第一个 key 到达后最多等待多久发出批量查询
+     */
+    public BatchingDispatcher(Function<List<K>, CompletableFuture<Map<K, V>>> batchLoader, int maxBatchSize, long windowMillis) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.batchLoader = batchLoader;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMillis = windowMillis;
+    }
+
+    // 查询一个 key，结果在所在批次的批量查询返回后完成
+    public CompletableFuture<V> get(K key) {
+        requests.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        Batch<K, V> full = null;
+        Batch<K, V> started = null;
+        synchronized (this) {
+            if (current == null) {
+                current = new Batch<>();
+                started = current;
+            }
+            current.waiters.computeIfAbsent(key, k -> new ArrayList<>()).add(future);
+            if (current.waiters.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        } else if (started != null) {
+            // 新批次的第一个 key：窗口到期后发出该批次（如果它还没有因为攒满而提前发出）
+            Batch<K, V> batch = started;
+            CompletableFuture.delayedExecutor(windowMillis, TimeUnit.MILLISECONDS).execute(() -> flush(batch));
+        }
+        return future;
+    }
+
+    // 立即发出正在攒的批次
+    public void flush() {
+        Batch<K, V> batch;
+        synchronized (this) {
+            batch = current;
+            current = null;
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    private void flush(Batch<K, V> batch) {
+        synchronized (this) {
+            if (current != batch) {
+                return;
+            }
+            current = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        batches.increment();
+        List<K> keys = new ArrayList<>(batch.waiters.keySet());
+        CompletableFuture<Map<K, V>> response;
+        try {
+            response = batchLoader.apply(keys);
+        } catch (Throwable ex) {
+            response = CompletableFuture.failedFuture(ex);
+        }
+        response.whenComplete((results, ex) -> {
+            // 批量查询返回 null 视为整批失败，否则回调中的 NPE 会被吞掉，该批次的调用方永远等不到结果
+            Throwable failure = ex != null ? CompletableFutures.unwrap(ex)
+                    : results == null ? new NullPointerException("batch loader returned null for " + keys.size() + " keys") : null;
+            batch.waiters.forEach((key, futures) -> {
+                for (CompletableFuture<V> future : futures) {
+                    if (failure != null) {
+                        future.completeExceptionally(failure);
+                    } else if (results.containsKey(key)) {
+                        future.complete(results.get(key));
+                    } else {
+                        future.completeExceptionally(new NoSuchElementException("no result for " + key));
+                    }
+                }
+            });
+        });
+    }
+
+    // 单个 key 的查询次数
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    // 发出的批量查询次数
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    private static class Batch<K, V> {
+        final Map<K, List<CompletableFuture<V>>> waiters = new LinkedHashMap<>();
+    }
+}
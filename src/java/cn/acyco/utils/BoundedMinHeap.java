@@ -0,0 +1,155 @@
+package cn.acyco.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * 保留 key 最小的 k 个元素
+ * <p>
+ * 内部是一个大小为 k 的大顶堆，key 存放在 int[] 中，比较时不装箱也不调用 Comparator；
+ * 新元素只有比堆顶（当前第 k 小）更小时才入堆，n 个元素的总代价为 O(n log k)，不需要整体排序。
+ * key 相同时按 order 从小到大排列（默认为加入顺序），结果与元素加入的时间先后无关，和稳定排序后取前 k 个一致。
+ * 非线程安全，并发使用时由调用方加锁。
+ */
+public class BoundedMinHeap<T> {
+    private final int capacity;
+    private final ToIntFunction<? super T> keyFunction;
+    private final int[] keys;
+    private final long[] orders;
+    private final Object[] values;
+    private int size;
+    // 未指定 order 时使用的加入序号
+    private long sequence;
+
+    public BoundedMinHeap(int capacity, ToIntFunction<? super T> keyFunction) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keyFunction = keyFunction;
+        this.keys = new int[capacity];
+        this.orders = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    // 加入一个元素，key 相同时先加入的排在前面，返回它是否被保留
+    public boolean offer(T value) {
+        return offer(value, sequence++);
+    }
+
+    // 加入一个元素，key 相同时 order 小的排在前面（例如输入中的下标），返回它是否被保留
+    public boolean offer(T value, long order) {
+        int key = keyFunction.applyAsInt(value);
+        if (size < capacity) {
+            keys[size] = key;
+            orders[size] = order;
+            values[size] = value;
+            siftUp(size++);
+            return true;
+        }
+        // 不小于当前第 k 小的元素
+        if (!less(key, order, keys[0], orders[0])) {
+            return false;
+        }
+        keys[0] = key;
+        orders[0] = order;
+        values[0] = value;
+        siftDown(0);
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 当前 key 最小的元素，为空时返回 null
+    @SuppressWarnings("unchecked")
+    public T min() {
+        if (size == 0) {
+            return null;
+        }
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (less(keys[i], orders[i], keys[min], orders[min])) {
+                min = i;
+            }
+        }
+        return (T) values[min];
+    }
+
+    // 按 key 从小到大返回保留的元素，O(k log k)，不修改堆
+    @SuppressWarnings("unchecked")
+    public List<T> toSortedList() {
+        int[] sortedKeys = new int[size];
+        long[] sortedOrders = new long[size];
+        Object[] sortedValues = new Object[size];
+        System.arraycopy(keys, 0, sortedKeys, 0, size);
+        System.arraycopy(orders, 0, sortedOrders, 0, size);
+        System.arraycopy(values, 0, sortedValues, 0, size);
+        // 在副本上依次弹出堆顶（最大值），从后往前填入
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(null);
+        }
+        for (int n = size; n > 0; n--) {
+            result.set(n - 1, (T) sortedValues[0]);
+            sortedKeys[0] = sortedKeys[n - 1];
+            sortedOrders[0] = sortedOrders[n - 1];
+            sortedValues[0] = sortedValues[n - 1];
+            siftDown(sortedKeys, sortedOrders, sortedValues, 0, n - 1);
+        }
+        return result;
+    }
+
+    // 先比较 key，key 相同时比较 order
+    private static boolean less(int key, long order, int otherKey, long otherOrder) {
+        return key < otherKey || (key == otherKey && order < otherOrder);
+    }
+
+    private void siftUp(int i) {
+        int key = keys[i];
+        long order = orders[i];
+        Object value = values[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(keys[parent], orders[parent], key, order)) {
+                break;
+            }
+            keys[i] = keys[parent];
+            orders[i] = orders[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        orders[i] = order;
+        values[i] = value;
+    }
+
+    private void siftDown(int i) {
+        siftDown(keys, orders, values, i, size);
+    }
+
+    private static void siftDown(int[] keys, long[] orders, Object[] values, int i, int size) {
+        int key = keys[i];
+        long order = orders[i];
+        Object value = values[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && less(keys[child], orders[child], keys[child + 1], orders[child + 1])) {
+                child++;
+            }
+            if (!less(key, order, keys[child], orders[child])) {
+                break;
+            }
+            keys[i] = keys[child];
+            orders[i] = orders[child];
+            values[i] = values[child];
+            i = child;
+        }
+        keys[i] = key;
+        orders[i] = order;
+        values[i] = value;
+    }
+}
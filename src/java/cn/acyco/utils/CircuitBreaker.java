@@ -0,0 +1,223 @@
+package cn.acyco.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 熔断器
+ * <p>
+ * 用最近 windowSize 次调用组成的滑动窗口统计失败率和慢调用率：
+ * <ul>
+ *     <li>CLOSED：正常放行，窗口内调用数达到 minimumCalls 且失败率或慢调用率超过阈值时转为 OPEN</li>
+ *     <li>OPEN：直接拒绝，不调用下游；经过 openMillis 后转为 HALF_OPEN</li>
+ *     <li>HALF_OPEN：放行 halfOpenCalls 次试探调用，全部正常则转为 CLOSED，任意一次失败或过慢则重新 OPEN</li>
+ * </ul>
+ * 被拒绝的调用立即以 {@link CallNotPermittedException} 结束，该异常不填充堆栈，拒绝只需要几微秒。
+ * 每次状态转换都会开始一个新的阶段，调用的结果只计入放行它的那个阶段：CLOSED 时放行、HALF_OPEN 后才返回的调用不会被当作试探调用。
+ */
+public class CircuitBreaker {
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+    // 检查慢调用的定时线程，守护线程，不阻止JVM退出；调用提前完成时取消的检查任务立即从队列中移除
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    // 拒绝时复用同一个异常对象，不填充堆栈，也不为每次拒绝分配对象
+    private final CallNotPermittedException rejected;
+
+    // 滑动窗口：最近 windowSize 次调用的结果
+    private final byte[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    // 当前阶段，每次状态转换加一
+    private long epoch;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallMillis, long openMillis, int halfOpenCalls) {
+        if (windowSize <= 0 || minimumCalls <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenCalls must be positive");
+        }
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenCalls = halfOpenCalls;
+        this.outcomes = new byte[windowSize];
+        this.rejected = new CallNotPermittedException(name);
+    }
+
+    // 默认配置：最近20次调用中至少10次，失败率或慢调用率超过50%时熔断5秒，恢复前试探3次
+    public CircuitBreaker(String name, long slowCallMillis) {
+        this(name, 20, 10, 0.5, 0.5, slowCallMillis, 5000, 3);
+    }
+
+    /**
+     * 经过熔断器执行异步调用：不允许调用时立即返回以 CallNotPermittedException 结束的 CompletableFuture，
+     * 否则调用 call，并在其完成时记录成功、失败和耗时。
+     * 超过慢调用阈值仍未完成的调用在到达阈值时就记为慢调用，下游一直不返回时同样会触发熔断。
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        long admittedEpoch = acquirePermission();
+        if (admittedEpoch < 0) {
+            return CompletableFuture.failedFuture(rejected);
+        }
+        long startTime = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Throwable ex) {
+            onComplete(admittedEpoch, System.nanoTime() - startTime, true);
+            return CompletableFuture.failedFuture(ex);
+        }
+        // 每次调用只记录一次：到达慢调用阈值时仍未完成则记为慢调用，之后完成时不再记录
+        AtomicBoolean counted = new AtomicBoolean();
+        CompletableFuture<T> current = future;
+        ScheduledFuture<?> slowCheck = SCHEDULER.schedule(() -> {
+            if (!current.isDone() && counted.compareAndSet(false, true)) {
+                onComplete(admittedEpoch, System.nanoTime() - startTime, false);
+            }
+        }, slowCallNanos, TimeUnit.NANOSECONDS);
+        future.whenComplete((value, ex) -> {
+            slowCheck.cancel(false);
+            if (counted.compareAndSet(false, true)) {
+                onComplete(admittedEpoch, System.nanoTime() - startTime, ex != null);
+            }
+        });
+        return future;
+    }
+
+    // 是否允许本次调用，允许时返回放行时所处的阶段，否则返回 -1；OPEN 状态到期后转为 HALF_OPEN 并发放试探许可
+    private synchronized long acquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return -1;
+            }
+            state = State.HALF_OPEN;
+            epoch++;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return -1;
+            }
+            halfOpenPermits--;
+        }
+        return epoch;
+    }
+
+    // 记录一次调用的结果
+    private synchronized void onComplete(long admittedEpoch, long durationNanos, boolean failed) {
+        if (admittedEpoch != epoch) {
+            // 在之前的阶段放行、状态转换后才返回的调用，不计入当前阶段
+            return;
+        }
+        boolean slow = durationNanos > slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            } else if (++halfOpenSucceeded == halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        record((byte) ((failed ? FAILURE : SUCCESS) | (slow ? SLOW : SUCCESS)));
+        if (recorded >= minimumCalls
+                && (failures >= failureRateThreshold * recorded || slowCalls >= slowCallRateThreshold * recorded)) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        // OPEN 到期后虽然还没有调用触发状态转换，但对外已经可以放行试探调用
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // 当前窗口内的失败率
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    // 当前窗口内的慢调用率
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0 : (double) slowCalls / recorded;
+    }
+
+    private void record(byte outcome) {
+        if (recorded == windowSize) {
+            // 窗口已满，移出最早的一次调用
+            byte evicted = outcomes[position];
+            failures -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        outcomes[position] = outcome;
+        failures += outcome & FAILURE;
+        slowCalls += (outcome & SLOW) >> 1;
+        position = (position + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        epoch++;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        epoch++;
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("circuit-breaker-scheduler", true));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * 熔断器拒绝调用时的异常，不填充堆栈，也不记录 suppressed 异常
+     */
+    public static class CallNotPermittedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public CallNotPermittedException(String name) {
+            super("circuit breaker '" + name + "' is open", null, false, false);
+        }
+    }
+}
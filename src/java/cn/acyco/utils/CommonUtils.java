@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,6 +25,28 @@ public class CommonUtils {
         }
     }
 
+    // 异步读取文件，读取失败时 CompletableFuture 以 IOException 异常完成，而不是返回空字符串
+    public static CompletableFuture<String> readFileAsync(String pathToFile) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Files.readString(Paths.get(pathToFile));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    // 异步打开内存映射文件，文件内容不会整体读入堆中，打开失败时 CompletableFuture 以 IOException 异常完成
+    public static CompletableFuture<MappedTextFile> mapFileAsync(String pathToFile) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return MappedTextFile.open(Paths.get(pathToFile));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
     // 休眠指定的毫秒数
     public static void sleepMillis(long millis) {
         try {
@@ -41,12 +65,14 @@ public class CommonUtils {
         }
     }
 
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("[HH:mm::ss.SS");
+
     private static String getCurrentTime() {
         LocalTime now = LocalTime.now();
-        return now.format(DateTimeFormatter.ofPattern("[HH:mm::ss.SS"));
+        return now.format(TIME_FORMATTER);
     }
 
-    // 打印输出带线程信息的日志
+    // 打印输出带线程信息的日志（同步输出，高频调用的热点路径使用 AsyncLogger）
     public static void printTheadLog(String message) {
         // 当前时间 | 线程id | 线程名 | 日志信息
         String result = new StringJoiner(" | ")
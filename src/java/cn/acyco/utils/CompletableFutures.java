@@ -0,0 +1,332 @@
+package cn.acyco.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * CompletableFuture 组合工具类
+ */
+public class CompletableFutures {
+
+    private CompletableFutures() {
+    }
+
+    /**
+     * 有界并发地执行一批任务：同时最多有 maxParallelism 个任务在 executor 中执行，一个任务完成后才从流中取下一个，
+     * 全部完成后按原顺序得到结果列表。
+     * failFast 为 true 时，第一个异常立即让结果以该异常结束，并取消其余在途任务、不再启动新任务；
+     * 为 false 时等待所有任务结束，再以第一个异常结束。
+     * 从流中取下一个任务时抛出的异常（例如流水线中 map 的异常）立即让结果以该异常结束，不再启动新任务，
+     * failFast 为 true 时同时取消在途任务。
+     */
+    public static <T> CompletableFuture<List<T>> supplyAllBounded(Stream<Supplier<T>> suppliers, Executor executor,
+                                                                 int maxParallelism, boolean failFast) {
+        if (maxParallelism <= 0) {
+            throw new IllegalArgumentException("maxParallelism must be positive: " + maxParallelism);
+        }
+        BoundedRun<T> run = new BoundedRun<>(suppliers.iterator(), executor, maxParallelism, failFast);
+        run.result.whenComplete((results, ex) -> suppliers.close());
+        run.pump();
+        return run.result;
+    }
+
+    // 收集器版本：把 Stream<Supplier<T>> 收集成有界并发执行的 CompletableFuture<List<T>>，遇到异常立即失败。
+    // 注意收集器会先把整个流收集到 List 中再启动第一个任务，所有 Supplier 都留在内存里；
+    // 流很大或需要边取边执行时直接使用 supplyAllBounded
+    public static <T> Collector<Supplier<T>, ?, CompletableFuture<List<T>>> toBoundedList(Executor executor, int maxParallelism) {
+        return Collectors.collectingAndThen(Collectors.toList(),
+                suppliers -> supplyAllBounded(suppliers.stream(), executor, maxParallelism, true));
+    }
+
+    /**
+     * 快速失败的 allOf：任意一个输入失败时立即以原始异常（不包装成 CompletionException）结束，并取消其余输入；
+     * 全部成功时正常完成。
+     * 注意 CompletableFuture.cancel 不会中断正在执行任务的线程，需要中断时用 {@link #supplyInterruptibly} 创建输入。
+     */
+    public static CompletableFuture<Void> allOfFailFast(CompletableFuture<?>... futures) {
+        CompletableFuture<Void> result = CompletableFuture.allOf(futures);
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((value, ex) -> {
+                if (ex != null && result.completeExceptionally(unwrap(ex))) {
+                    for (CompletableFuture<?> sibling : futures) {
+                        sibling.cancel(true);
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    // 快速失败的 allOf，全部成功时按输入顺序得到结果列表
+    public static <T> CompletableFuture<List<T>> allOfFailFast(List<CompletableFuture<T>> futures) {
+        CompletableFuture<?>[] futureArr = futures.toArray(new CompletableFuture<?>[0]);
+        return allOfFailFast(futureArr).thenApply(v -> futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 类型安全的 anyOf，返回第一个成功的结果：失败的输入被忽略，第一个成功的结果到达后取消其余输入；
+     * 只有所有输入都失败时才以最后一个异常结束（其余异常作为 suppressed 附加在上面）
+     */
+    public static <T> CompletableFuture<T> firstSuccessOf(List<? extends CompletableFuture<? extends T>> futures) {
+        if (futures.isEmpty()) {
+            return CompletableFuture.failedFuture(new NoSuchElementException("no futures to wait for"));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean won = new AtomicBoolean();
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        for (CompletableFuture<? extends T> future : futures) {
+            future.whenComplete((value, ex) -> {
+                if (ex == null) {
+                    // 先取消其余输入再完成结果，调用方拿到结果时失败者已经被取消
+                    if (won.compareAndSet(false, true)) {
+                        futures.forEach(loser -> loser.cancel(true));
+                        result.complete(value);
+                    }
+                    return;
+                }
+                errors.add(unwrap(ex));
+                if (remaining.decrementAndGet() == 0) {
+                    Throwable last = unwrap(ex);
+                    errors.stream().filter(error -> error != last).forEach(last::addSuppressed);
+                    result.completeExceptionally(last);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 取 key 最小的 k 个结果：每个输入完成时立即放入大小为 k 的堆中，不需要等待所有结果后再排序，
+     * 也不按输入顺序阻塞 join。全部完成后按 key 从小到大得到结果，key 相同时按输入顺序，与完成先后无关；
+     * 任意一个输入失败时以该异常结束。
+     */
+    public static <T> CompletableFuture<List<T>> minK(List<? extends CompletableFuture<? extends T>> futures, int k,
+                                                      ToIntFunction<? super T> keyFunction) {
+        BoundedMinHeap<T> heap = new BoundedMinHeap<>(k, keyFunction);
+        return reduceAll(futures, heap).thenApply(BoundedMinHeap::toSortedList);
+    }
+
+    // 取 key 最小的结果，key 相同时取输入中靠前的一个，没有输入时以 NoSuchElementException 结束
+    public static <T> CompletableFuture<T> minOf(List<? extends CompletableFuture<? extends T>> futures,
+                                                 ToIntFunction<? super T> keyFunction) {
+        if (futures.isEmpty()) {
+            return CompletableFuture.failedFuture(new NoSuchElementException("no futures to reduce"));
+        }
+        BoundedMinHeap<T> heap = new BoundedMinHeap<>(1, keyFunction);
+        return reduceAll(futures, heap).thenApply(BoundedMinHeap::min);
+    }
+
+    // 每个输入完成时把结果放入堆中，全部完成后返回该堆
+    private static <T> CompletableFuture<BoundedMinHeap<T>> reduceAll(List<? extends CompletableFuture<? extends T>> futures,
+                                                                    BoundedMinHeap<T> heap) {
+        CompletableFuture<BoundedMinHeap<T>> result = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        if (futures.isEmpty()) {
+            result.complete(heap);
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            int index = i;
+            futures.get(i).whenComplete((value, ex) -> {
+                if (ex != null) {
+                    result.completeExceptionally(unwrap(ex));
+                    return;
+                }
+                // 以输入下标作为 key 相同时的次序，结果不受完成先后影响
+                synchronized (heap) {
+                    heap.offer(value, index);
+                }
+                // 最后一个完成的输入负责完成结果，此前的 offer 都在同一把锁下，对它可见
+                if (remaining.decrementAndGet() == 0) {
+                    result.complete(heap);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 在 executor 中执行任务，与 supplyAsync 不同的是：返回的 CompletableFuture 被取消时会中断正在执行任务的线程，
+     * 或者让尚未开始的任务不再执行，从而立即释放线程池中的线程
+     */
+    public static <T> CompletableFuture<T> supplyInterruptibly(Supplier<T> supplier, ExecutorService executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        future.whenComplete((value, ex) -> {
+            if (future.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    // 去掉 CompletionException / ExecutionException 包装，得到原始异常
+    public static Throwable unwrap(Throwable ex) {
+        while ((ex instanceof CompletionException || ex instanceof ExecutionException) && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        return ex;
+    }
+
+    private static class BoundedRun<T> {
+        final CompletableFuture<List<T>> result = new CompletableFuture<>();
+        private final Iterator<Supplier<T>> source;
+        private final Executor executor;
+        private final int maxParallelism;
+        private final boolean failFast;
+        private final List<T> results = new ArrayList<>();
+        private final Map<Integer, CompletableFuture<T>> running = new HashMap<>();
+        private int inFlight;
+        private Throwable firstError;
+        // 保证同一时刻只有一个线程在启动任务；其他线程发现有人在启动时只做标记，避免回调中层层递归
+        private boolean pumping;
+        private boolean repump;
+
+        BoundedRun(Iterator<Supplier<T>> source, Executor executor, int maxParallelism, boolean failFast) {
+            this.source = source;
+            this.executor = executor;
+            this.maxParallelism = maxParallelism;
+            this.failFast = failFast;
+        }
+
+        // 在并发上限内尽可能多地启动任务
+        void pump() {
+            synchronized (this) {
+                if (pumping) {
+                    repump = true;
+                    return;
+                }
+                pumping = true;
+            }
+            while (true) {
+                Supplier<T> supplier = null;
+                int index = -1;
+                boolean finished = false;
+                Throwable pullError = null;
+                synchronized (this) {
+                    try {
+                        boolean stopped = result.isDone() || (failFast && firstError != null);
+                        if (stopped || inFlight >= maxParallelism || !source.hasNext()) {
+                            if (repump) {
+                                repump = false;
+                                continue;
+                            }
+                            pumping = false;
+                            finished = !stopped && inFlight == 0 && !source.hasNext();
+                        } else {
+                            supplier = source.next();
+                            index = results.size();
+                            results.add(null);
+                            inFlight++;
+                        }
+                    } catch (Throwable ex) {
+                        // 流水线本身抛出异常（例如 map 中的异常）：不再从流中取任务，否则异常会在回调中被吞掉，结果永远不会完成
+                        pumping = false;
+                        repump = false;
+                        pullError = ex;
+                    }
+                }
+                if (pullError != null) {
+                    onPullError(pullError);
+                    return;
+                }
+                if (supplier == null) {
+                    // 所有任务都已完成，在锁外完成结果，避免在锁内执行调用方的回调
+                    if (finished) {
+                        finish();
+                    }
+                    return;
+                }
+                CompletableFuture<T> future;
+                try {
+                    future = CompletableFuture.supplyAsync(supplier, executor);
+                } catch (Throwable ex) {
+                    // 例如线程池拒绝任务
+                    future = CompletableFuture.failedFuture(ex);
+                }
+                int taskIndex = index;
+                synchronized (this) {
+                    if (!future.isDone()) {
+                        running.put(taskIndex, future);
+                    }
+                }
+                future.whenComplete((value, ex) -> onComplete(taskIndex, value, ex));
+            }
+        }
+
+        private void onComplete(int index, T value, Throwable ex) {
+            List<CompletableFuture<T>> toCancel = null;
+            synchronized (this) {
+                inFlight--;
+                running.remove(index);
+                if (ex == null) {
+                    results.set(index, value);
+                } else if (firstError == null) {
+                    firstError = unwrap(ex);
+                    if (failFast) {
+                        toCancel = new ArrayList<>(running.values());
+                    }
+                }
+            }
+            if (toCancel != null) {
+                result.completeExceptionally(firstError);
+                toCancel.forEach(future -> future.cancel(true));
+                return;
+            }
+            pump();
+        }
+
+        private void onPullError(Throwable ex) {
+            List<CompletableFuture<T>> toCancel;
+            synchronized (this) {
+                if (firstError == null) {
+                    firstError = ex;
+                }
+                toCancel = failFast ? new ArrayList<>(running.values()) : List.of();
+            }
+            result.completeExceptionally(ex);
+            toCancel.forEach(future -> future.cancel(true));
+        }
+
+        private void finish() {
+            Throwable error;
+            List<T> values;
+            synchronized (this) {
+                error = firstError;
+                values = new ArrayList<>(results);
+            }
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(values);
+            }
+        }
+    }
+}
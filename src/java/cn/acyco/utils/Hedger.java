@@ -0,0 +1,144 @@
+package cn.acyco.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求（hedged request）
+ * <p>
+ * 先发出一次请求，如果它在对冲延迟内没有完成，再发出一次相同的请求，两者先完成的结果胜出，另一个被取消。
+ * 对冲延迟取最近请求耗时的某个分位数（例如 p95），这样只有最慢的少部分请求会被对冲，额外负载约为 (1 - 分位数)。
+ */
+public class Hedger {
+    // 保留最近多少次请求的耗时
+    private static final int SAMPLE_SIZE = 1024;
+    // 每记录多少次耗时重新计算一次对冲延迟
+    private static final int RECOMPUTE_INTERVAL = 64;
+    // 调度对冲请求的线程，守护线程，不阻止JVM退出；结果提前完成时取消的对冲任务立即从队列中移除
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private int sampleCount;
+    private volatile long hedgeDelayMillis;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * @param percentile          对冲延迟取耗时的哪个分位数，例如 0.95
+     * @param initialDelayMillis  采集到足够样本之前使用的对冲延迟
+     * @param minDelayMillis      对冲延迟的下限，避免耗时普遍很短时几乎每个请求都被对冲
+     */
+    public Hedger(double percentile, long initialDelayMillis, long minDelayMillis) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1): " + percentile);
+        }
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.hedgeDelayMillis = Math.max(initialDelayMillis, minDelayMillis);
+    }
+
+    // 发出请求，必要时对冲；只有所有已发出的请求都失败时才以最后一个异常结束
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request) {
+        requests.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // 在途的请求数，降为0时说明全部失败
+        AtomicInteger pending = new AtomicInteger(1);
+
+        CompletableFuture<T> primary = attempt(request, result, pending, false);
+        // 对冲延迟到期后，结果仍未完成则再发出一次请求；结果先完成时取消尚未触发的对冲任务
+        ScheduledFuture<?> scheduledHedge = SCHEDULER.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            pending.incrementAndGet();
+            hedges.increment();
+            CompletableFuture<T> hedge = attempt(request, result, pending, true);
+            result.whenComplete((value, ex) -> hedge.cancel(true));
+        }, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((value, ex) -> {
+            scheduledHedge.cancel(false);
+            primary.cancel(true);
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> attempt(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result,
+                                             AtomicInteger pending, boolean isHedge) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (Throwable ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        CompletableFuture<T> current = future;
+        future.whenComplete((value, ex) -> {
+            // 成功、失败和落败被取消的请求都记录耗时，只统计胜出者会让分位数偏低、对冲过于频繁；
+            // 落败被取消的原请求耗时至少是对冲延迟，作为下限计入；对冲请求落败时只跑了很短时间，不计入
+            if (!(isHedge && current.isCancelled())) {
+                recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            if (ex == null) {
+                if (result.complete(value) && isHedge) {
+                    hedgeWins.increment();
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("hedger-scheduler", true));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private synchronized void recordLatency(long millis) {
+        samples[sampleCount % SAMPLE_SIZE] = millis;
+        sampleCount++;
+        if (sampleCount % RECOMPUTE_INTERVAL == 0) {
+            long[] sorted = Arrays.copyOf(samples, Math.min(sampleCount, SAMPLE_SIZE));
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            hedgeDelayMillis = Math.max(minDelayMillis, sorted[Math.max(0, index)]);
+        }
+    }
+
+    // 当前的对冲延迟
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    // 请求次数（不含对冲请求）
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    // 发出的对冲请求次数
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    // 对冲请求先于原请求完成的次数
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    // 对冲比例 = 对冲请求次数 / 请求次数
+    public double getHedgeRate() {
+        long requestCount = requests.sum();
+        return requestCount == 0 ? 0 : (double) hedges.sum() / requestCount;
+    }
+}
@@ -0,0 +1,113 @@
+package cn.acyco.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图（参考 HdrHistogram 的对数分桶）
+ * <p>
+ * 按 2 的幂分段，每段再等分成 64 个子桶，任意取值的相对误差都小于 1/64。
+ * 桶的个数固定，记录一次只是一次数组下标计算加一次原子自增，不分配对象、不加锁，可以在多线程热点路径上常开。
+ * 最大值单独精确记录。
+ */
+public class LatencyHistogram {
+    // 小于 2^SUB_BUCKET_BITS 的值每个值一个桶，之后每段 SUB_BUCKET_HALF 个子桶
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // 记录一个取值（纳秒），负数按 0 记录
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+        // 最大值很少变化，先读一次避免每次都 CAS
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalValue.get() / count;
+    }
+
+    /**
+     * 返回第 percentile 百分位（0 ~ 100）的取值，即不小于该比例记录的最小桶上界。
+     * 记录与读取可以并发进行，读取到的是一个近似的快照。
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // 清空所有记录
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalValue.set(0);
+        max.set(0);
+    }
+
+    // 以指定时间单位输出 p50/p99/max 摘要（记录的取值为纳秒）
+    public String summary(TimeUnit unit) {
+        double scale = unit.toNanos(1);
+        return String.format("count=%d p50=%.2f p99=%.2f max=%.2f",
+                getCount(), getValueAtPercentile(50) / scale, getValueAtPercentile(99) / scale, getMax() / scale);
+    }
+
+    @Override
+    public String toString() {
+        return summary(TimeUnit.MILLISECONDS);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // 右移后落在 [SUB_BUCKET_HALF, SUB_BUCKET_COUNT) 内，保留最高的 SUB_BUCKET_BITS 位
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    // 桶内的最大取值
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long subBucket = index - (long) shift * SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,184 @@
+package cn.acyco.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 内存映射的只读文本文件
+ * <p>
+ * 通过 {@link FileChannel#map} 把文件映射到内存，文件内容不会整体拷贝到堆上，适合扫描 GB 级别的大文件：
+ * <ul>
+ *     <li>{@link #asByteBuffer()} 返回整个文件的 ByteBuffer 视图（文件不超过 2GB）</li>
+ *     <li>{@link #asCharSequence()} 把单字节编码（ASCII / ISO-8859-1）的文件直接当作 CharSequence 使用</li>
+ *     <li>{@link #chunks(Charset, int)} 按块解码成字符流，任意大小、任意编码的文件都可以使用</li>
+ * </ul>
+ */
+public class MappedTextFile implements AutoCloseable {
+    // 按块解码时每次映射的窗口大小
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+
+    private MappedTextFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    // 打开文件
+    public static MappedTextFile open(Path path) throws IOException {
+        return new MappedTextFile(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    // 文件的字节数
+    public long size() {
+        return size;
+    }
+
+    // 映射文件中 [position, position + length) 的字节
+    public MappedByteBuffer map(long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    // 整个文件的 ByteBuffer 视图
+    public ByteBuffer asByteBuffer() throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("file too large for a single buffer: " + size + " bytes, use chunks() instead");
+        }
+        return map(0, size);
+    }
+
+    // 单字节编码文件的 CharSequence 视图，每个字节对应一个字符，不做解码也不拷贝
+    public CharSequence asCharSequence() throws IOException {
+        return new ByteCharSequence(asByteBuffer());
+    }
+
+    /**
+     * 按块解码文件内容，每块最多 chunkChars 个字符。
+     * 映射窗口在文件上滑动，跨越窗口边界的多字节字符会在下一个窗口中完整解码。
+     */
+    public Stream<CharBuffer> chunks(Charset charset, int chunkChars) {
+        if (chunkChars <= 0) {
+            throw new IllegalArgumentException("chunkChars must be positive: " + chunkChars);
+        }
+        Iterator<CharBuffer> iterator = new ChunkIterator(charset, chunkChars);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // 以 UTF-8 按块解码
+    public Stream<CharBuffer> chunks(int chunkChars) {
+        return chunks(StandardCharsets.UTF_8, chunkChars);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private class ChunkIterator implements Iterator<CharBuffer> {
+        private final CharsetDecoder decoder;
+        private final int chunkChars;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+        private long windowStart;
+        private boolean flushed;
+        private CharBuffer next;
+
+        ChunkIterator(Charset charset, int chunkChars) {
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.chunkChars = chunkChars;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !flushed) {
+                next = decodeChunk();
+            }
+            return next != null;
+        }
+
+        @Override
+        public CharBuffer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CharBuffer chunk = next;
+            next = null;
+            return chunk;
+        }
+
+        private CharBuffer decodeChunk() {
+            CharBuffer out = CharBuffer.allocate(chunkChars);
+            while (out.hasRemaining()) {
+                boolean lastWindow = windowStart + window.limit() == size;
+                CoderResult result = decoder.decode(window, out, lastWindow);
+                if (result.isOverflow()) {
+                    break;
+                }
+                if (lastWindow) {
+                    if (decoder.flush(out).isOverflow()) {
+                        break;
+                    }
+                    flushed = true;
+                    break;
+                }
+                // 当前窗口已解码完（可能剩下半个字符），从第一个未解码的字节开始映射下一个窗口
+                long consumed = windowStart + window.position();
+                try {
+                    window = map(consumed, Math.min(WINDOW_SIZE, size - consumed));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                windowStart = consumed;
+            }
+            out.flip();
+            return out.hasRemaining() ? out : null;
+        }
+    }
+
+    private static class ByteCharSequence implements CharSequence {
+        private final ByteBuffer bytes;
+
+        ByteCharSequence(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteCharSequence(bytes.slice(start, end - start));
+        }
+
+        @Override
+        public String toString() {
+            return StandardCharsets.ISO_8859_1.decode(bytes.duplicate()).toString();
+        }
+    }
+}
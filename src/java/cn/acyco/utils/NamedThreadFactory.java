@@ -0,0 +1,33 @@
+package cn.acyco.utils;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按 "前缀-序号" 命名线程的线程工厂，便于在日志和线程转储中区分各个线程池
+ */
+public class NamedThreadFactory implements ThreadFactory {
+    private final String prefix;
+    private final boolean daemon;
+    private final AtomicInteger sequence = new AtomicInteger(1);
+
+    public NamedThreadFactory(String prefix) {
+        this(prefix, false);
+    }
+
+    public NamedThreadFactory(String prefix, boolean daemon) {
+        this.prefix = prefix;
+        this.daemon = daemon;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + "-" + sequence.getAndIncrement());
+        thread.setDaemon(daemon);
+        return thread;
+    }
+}
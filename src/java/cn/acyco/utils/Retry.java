@@ -0,0 +1,150 @@
+package cn.acyco.utils;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 指数退避 + 随机抖动的异步重试
+ * <p>
+ * 调用失败且异常可重试时，等待一段退避时间后再次调用：第 n 次重试的退避上限为 initialBackoff * 2^(n-1)（不超过 maxBackoff），
+ * 实际取上限的一半再加上 [0, 一半) 的随机抖动，避免大量调用方在同一时刻一起重试。
+ * 退避通过 {@link CompletableFuture#delayedExecutor} 调度，等待期间不占用任何线程，不会像在 handle 中 sleep 那样成倍占用线程。
+ */
+public class Retry {
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Predicate<Throwable> retryable;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder giveUps = new LongAdder();
+
+    /**
+     * @param maxAttempts          最多调用几次（含第一次）
+     * @param initialBackoffMillis 第一次重试前的退避上限
+     * @param maxBackoffMillis     退避上限的最大值
+     * @param retryable            哪些异常可以重试，传入的是去掉 CompletionException 包装后的原始异常
+     */
+    public Retry(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, Predicate<Throwable> retryable) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retryable = retryable;
+    }
+
+    // 除取消以外的异常都重试
+    public Retry(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        this(maxAttempts, initialBackoffMillis, maxBackoffMillis, ex -> !(ex instanceof CancellationException));
+    }
+
+    // 不限总时长的重试
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        return start(call, false, 0);
+    }
+
+    /**
+     * 在 timeout 内重试：下一次重试的退避时间会超过截止时间时不再重试，以最后一次的异常结束。
+     * 截止时间到达时结果仍未完成，则以 TimeoutException 结束并取消在途的调用。
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call, long timeout, TimeUnit unit) {
+        return start(call, true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    private <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> call, boolean hasDeadline, long deadline) {
+        calls.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (hasDeadline) {
+            result.orTimeout(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        // 当前在途的一次调用；整个重试过程只在 result 上注册一个回调，而不是每次调用注册一个：
+        // result 被取消或超时时取消在途的调用（因调用本身失败而结束时，该调用已经完成，取消无效果）
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        result.whenComplete((value, ex) -> {
+            CompletableFuture<T> inFlight = current.get();
+            if (ex != null && inFlight != null) {
+                inFlight.cancel(true);
+            }
+        });
+        attempt(call, result, current, 1, hasDeadline, deadline);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result, AtomicReference<CompletableFuture<T>> current,
+                             int attempt, boolean hasDeadline, long deadline) {
+        // 调用方已经取消或放弃了结果，不再发起调用
+        if (result.isDone()) {
+            return;
+        }
+        attempts.increment();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Throwable ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        current.set(future);
+        // 发起调用期间 result 被取消或超时时，回调可能还没看到这次调用
+        if (result.isCompletedExceptionally()) {
+            future.cancel(true);
+        }
+        future.whenComplete((value, ex) -> {
+            if (ex == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = CompletableFutures.unwrap(ex);
+            if (!retryable.test(cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long backoffMillis = backoffMillis(attempt);
+            if (attempt >= maxAttempts
+                    || (hasDeadline && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis) - deadline >= 0)) {
+                giveUps.increment();
+                result.completeExceptionally(cause);
+                return;
+            }
+            retries.increment();
+            CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(call, result, current, attempt + 1, hasDeadline, deadline));
+        });
+    }
+
+    // 第 attempt 次调用失败后的退避时间
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        long half = ceiling / 2;
+        return half + (half > 0 ? ThreadLocalRandom.current().nextLong(half) : 0);
+    }
+
+    // 调用次数（不含重试）
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    // 实际发起的调用次数（含重试）
+    public long getAttemptCount() {
+        return attempts.sum();
+    }
+
+    // 重试次数
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    // 可重试的异常因为次数用完或截止时间已到而放弃的次数
+    public long getGiveUpCount() {
+        return giveUps.sum();
+    }
+}
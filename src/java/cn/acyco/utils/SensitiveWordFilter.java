@@ -0,0 +1,253 @@
+package cn.acyco.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 敏感词过滤器（Aho-Corasick 自动机）
+ * <p>
+ * 由敏感词列表构建一次，之后可被多个线程复用；对文本只扫描一遍，把所有命中的敏感词替换成掩码写入同一个输出缓冲区。
+ * 相互重叠的命中合并成一段，只输出一次掩码；首尾相接但不重叠的命中各自输出掩码。
+ * <p>
+ * 对于很大的文本，可以使用 {@link #filterAsync(CharSequence, int, Executor)} 分块并行过滤，结果与 {@link #filter(CharSequence)} 完全一致。
+ */
+public class SensitiveWordFilter {
+    public static final String DEFAULT_MASK = "**";
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final int[] NO_CHILDREN = new int[0];
+
+    // 每个节点的子节点：按字符升序排列的 keys 与对应的子节点下标
+    private final char[][] keys;
+    private final int[][] children;
+    // 失配指针
+    private final int[] fail;
+    // 以该节点结尾（含失配链上）的最长敏感词长度，0 表示没有命中
+    private final int[] matchLength;
+    private final int maxWordLength;
+    private final String mask;
+
+    private SensitiveWordFilter(char[][] keys, int[][] children, int[] fail, int[] matchLength, int maxWordLength, String mask) {
+        this.keys = keys;
+        this.children = children;
+        this.fail = fail;
+        this.matchLength = matchLength;
+        this.maxWordLength = maxWordLength;
+        this.mask = mask;
+    }
+
+    // 根据敏感词构建过滤器
+    public static SensitiveWordFilter of(String... words) {
+        return of(Arrays.asList(words), DEFAULT_MASK);
+    }
+
+    // 根据敏感词构建过滤器
+    public static SensitiveWordFilter of(Collection<String> words) {
+        return of(words, DEFAULT_MASK);
+    }
+
+    // 根据敏感词构建过滤器，并指定替换用的掩码
+    public static SensitiveWordFilter of(Collection<String> words, String mask) {
+        // step 1: 构建字典树
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> wordLength = new ArrayList<>();
+        trie.add(new HashMap<>());
+        wordLength.add(0);
+        int maxWordLength = 0;
+        for (String rawWord : words) {
+            String word = rawWord.trim();
+            if (word.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < word.length(); i++) {
+                Integer next = trie.get(node).get(word.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new HashMap<>());
+                    wordLength.add(0);
+                    trie.get(node).put(word.charAt(i), next);
+                }
+                node = next;
+            }
+            wordLength.set(node, word.length());
+            maxWordLength = Math.max(maxWordLength, word.length());
+        }
+
+        // step 2: 压缩成有序数组，便于二分查找
+        int size = trie.size();
+        char[][] keys = new char[size][];
+        int[][] children = new int[size][];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> edges = trie.get(node);
+            if (edges.isEmpty()) {
+                keys[node] = NO_KEYS;
+                children[node] = NO_CHILDREN;
+                continue;
+            }
+            char[] nodeKeys = new char[edges.size()];
+            int i = 0;
+            for (char c : edges.keySet()) {
+                nodeKeys[i++] = c;
+            }
+            Arrays.sort(nodeKeys);
+            int[] nodeChildren = new int[nodeKeys.length];
+            for (i = 0; i < nodeKeys.length; i++) {
+                nodeChildren[i] = edges.get(nodeKeys[i]);
+            }
+            keys[node] = nodeKeys;
+            children[node] = nodeChildren;
+        }
+
+        // step 3: 广度优先计算失配指针，并沿失配链合并最长命中长度
+        int[] fail = new int[size];
+        int[] matchLength = new int[size];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : children[0]) {
+            matchLength[child] = wordLength.get(child);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < keys[node].length; i++) {
+                char c = keys[node][i];
+                int child = children[node][i];
+                int f = fail[node];
+                int target;
+                while ((target = step(keys, children, f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = Math.max(target, 0);
+                matchLength[child] = Math.max(wordLength.get(child), matchLength[fail[child]]);
+                queue.add(child);
+            }
+        }
+        return new SensitiveWordFilter(keys, children, fail, matchLength, maxWordLength, mask);
+    }
+
+    private static int step(char[][] keys, int[][] children, int node, char c) {
+        int i = Arrays.binarySearch(keys[node], c);
+        return i >= 0 ? children[node][i] : -1;
+    }
+
+    // 最长敏感词的长度
+    public int maxWordLength() {
+        return maxWordLength;
+    }
+
+    // 过滤文本：一次扫描，把敏感词替换成掩码
+    public String filter(CharSequence text) {
+        MatchRegions regions = new MatchRegions();
+        findMatches(text, 0, text.length(), regions);
+        return regions.apply(text, mask);
+    }
+
+    // 分块并行过滤，每块默认 1M 个字符
+    public CompletableFuture<String> filterAsync(CharSequence text, Executor executor) {
+        return filterAsync(text, DEFAULT_CHUNK_SIZE, executor);
+    }
+
+    /**
+     * 分块并行过滤：把文本切成 chunkSize 大小的块，每块作为一个异步任务在 executor 上查找命中，
+     * 全部完成后按顺序合并命中区间并一次性生成结果。
+     * 每块向前多扫描 maxWordLength - 1 个字符，只保留结束位置落在本块内的命中，所以块边界上既不重复也不遗漏。
+     */
+    public CompletableFuture<String> filterAsync(CharSequence text, int chunkSize, Executor executor) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        // step 1: 按块创建异步任务，查找每块内的命中区间
+        List<CompletableFuture<MatchRegions>> chunkFutures = new ArrayList<>();
+        for (int from = 0; from < text.length(); from += chunkSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(text.length(), from + chunkSize);
+            chunkFutures.add(CompletableFuture.supplyAsync(() -> {
+                MatchRegions regions = new MatchRegions();
+                findMatches(text, chunkFrom, chunkTo, regions);
+                return regions;
+            }, executor));
+        }
+
+        // step 2: 所有块完成后，按顺序合并命中区间（跨块重叠的命中在这里合并），拼接结果
+        CompletableFuture<?>[] chunkFutureArr = chunkFutures.toArray(new CompletableFuture<?>[0]);
+        return CompletableFuture.allOf(chunkFutureArr).thenApply(v -> {
+            MatchRegions regions = new MatchRegions();
+            for (CompletableFuture<MatchRegions> chunkFuture : chunkFutures) {
+                regions.addAll(chunkFuture.join());
+            }
+            return regions.apply(text, mask);
+        });
+    }
+
+    /**
+     * 查找结束位置落在 (from, to] 内的全部命中，追加到 regions 中。
+     * 为了不漏掉跨越 from 的命中，扫描从 from - (maxWordLength - 1) 开始。
+     */
+    void findMatches(CharSequence text, int from, int to, MatchRegions regions) {
+        int node = 0;
+        for (int i = Math.max(0, from - maxWordLength + 1); i < to; i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = step(keys, children, node, c)) < 0 && node != 0) {
+                node = fail[node];
+            }
+            node = Math.max(next, 0);
+            int length = matchLength[node];
+            if (length > 0 && i >= from) {
+                regions.add(i + 1 - length, i + 1);
+            }
+        }
+    }
+
+    /**
+     * 命中区间集合：按结束位置递增追加，重叠的区间即时合并，始终保持有序且互不重叠
+     */
+    static class MatchRegions {
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int size;
+
+        void add(int start, int end) {
+            // 与已有区间重叠（不含首尾相接）时合并
+            while (size > 0 && ends[size - 1] > start) {
+                size--;
+                start = Math.min(start, starts[size]);
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        void addAll(MatchRegions other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.starts[i], other.ends[i]);
+            }
+        }
+
+        // 把区间替换成掩码，其余字符原样拷贝到同一个输出缓冲区
+        String apply(CharSequence text, String mask) {
+            if (size == 0) {
+                return text.toString();
+            }
+            StringBuilder out = new StringBuilder(text.length());
+            int copied = 0;
+            for (int i = 0; i < size; i++) {
+                out.append(text, copied, starts[i]).append(mask);
+                copied = ends[i];
+            }
+            return out.append(text, copied, text.length()).toString();
+        }
+    }
+}
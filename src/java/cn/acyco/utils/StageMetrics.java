@@ -0,0 +1,174 @@
+package cn.acyco.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * CompletableFuture 各阶段的耗时统计
+ * <p>
+ * 按 "阶段名 + 执行器" 分别记录两个直方图：
+ * <ul>
+ *     <li>排队时间：任务提交到开始执行，反映线程池是否不够用</li>
+ *     <li>执行时间：开始执行到执行结束，反映阶段本身（或下游平台）是否慢</li>
+ * </ul>
+ * 每个阶段只多出三次 System.nanoTime() 和几次原子自增，可以在生产环境常开，需要时调用 {@link #report()} 导出 p50/p99/max。
+ */
+public class StageMetrics {
+    // 在完成上一个阶段的线程中直接执行的阶段（thenApply / thenCombine 等）
+    public static final String INLINE = "inline";
+    // 返回 CompletableFuture 的异步调用，不占用调用方的执行器
+    public static final String ASYNC = "async";
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Object, StageStats>> stages = new ConcurrentHashMap<>();
+
+    // 在 executor 上异步执行 supplier，并记录排队时间和执行时间
+    public <T> CompletableFuture<T> supplyAsync(String stage, Supplier<T> supplier, Executor executor) {
+        StageStats stats = stats(stage, executor);
+        long submitTime = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            long startTime = System.nanoTime();
+            try {
+                return supplier.get();
+            } finally {
+                stats.record(submitTime, startTime, System.nanoTime());
+            }
+        }, executor);
+    }
+
+    // 记录异步调用从发起到完成（包括失败）的时间，计入执行时间
+    public <T> CompletableFuture<T> timeAsync(String stage, Supplier<CompletableFuture<T>> call) {
+        return timeAsync(asyncStage(stage), call);
+    }
+
+    // 同上，使用预先通过 asyncStage 取得的统计，热点路径上不再拼接阶段名、查找 Map
+    public <T> CompletableFuture<T> timeAsync(StageStats stats, Supplier<CompletableFuture<T>> call) {
+        long startTime = System.nanoTime();
+        CompletableFuture<T> future = call.get();
+        future.whenComplete((result, ex) -> {
+            long endTime = System.nanoTime();
+            stats.record(startTime, startTime, endTime);
+        });
+        return future;
+    }
+
+    // 包装 thenCombine 的合并函数，记录其执行时间
+    public <T, U, R> BiFunction<T, U, R> timed(String stage, BiFunction<T, U, R> fn) {
+        StageStats stats = stats(stage, INLINE);
+        return (t, u) -> {
+            long startTime = System.nanoTime();
+            try {
+                return fn.apply(t, u);
+            } finally {
+                stats.record(startTime, startTime, System.nanoTime());
+            }
+        };
+    }
+
+    // 异步调用阶段的统计，可以缓存后传给 timeAsync(StageStats, Supplier)
+    public StageStats asyncStage(String stage) {
+        return stats(stage, ASYNC);
+    }
+
+    // 所有阶段的统计，按阶段名、执行器排序
+    public List<StageStats> getStageStats() {
+        List<StageStats> result = new ArrayList<>();
+        stages.values().forEach(byExecutor -> result.addAll(byExecutor.values()));
+        result.sort(Comparator.comparing(StageStats::getStage).thenComparing(StageStats::getExecutor));
+        return result;
+    }
+
+    // 以毫秒为单位导出每个阶段的 p50/p99/max
+    public String report() {
+        StringBuilder out = new StringBuilder(String.format("%-28s %-24s %8s | %-26s | %-26s%n",
+                "stage", "executor", "count", "queue p50/p99/max(ms)", "exec p50/p99/max(ms)"));
+        for (StageStats stats : getStageStats()) {
+            out.append(String.format("%-28s %-24s %8d | %-26s | %-26s%n",
+                    stats.getStage(), stats.getExecutor(), stats.getExecution().getCount(),
+                    percentiles(stats.getQueueWait()), percentiles(stats.getExecution())));
+        }
+        return out.toString();
+    }
+
+    // 清空所有统计；只清零直方图，不移除阶段，调用方缓存的 StageStats 仍然有效
+    public void reset() {
+        stages.values().forEach(byExecutor -> byExecutor.values().forEach(StageStats::reset));
+    }
+
+    private static String percentiles(LatencyHistogram histogram) {
+        double scale = TimeUnit.MILLISECONDS.toNanos(1);
+        return String.format("%.2f / %.2f / %.2f", histogram.getValueAtPercentile(50) / scale,
+                histogram.getValueAtPercentile(99) / scale, histogram.getMax() / scale);
+    }
+
+    // 执行器按对象本身区分，名称只在第一次使用时生成
+    private StageStats stats(String stage, Object executor) {
+        return stages.computeIfAbsent(stage, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(executor, k -> new StageStats(stage, executorName(executor)));
+    }
+
+    private static String executorName(Object executor) {
+        if (executor instanceof String) {
+            return (String) executor;
+        }
+        if (executor == ForkJoinPool.commonPool()) {
+            return "commonPool";
+        }
+        if (executor instanceof ThreadPoolExecutor
+                && ((ThreadPoolExecutor) executor).getThreadFactory() instanceof NamedThreadFactory) {
+            return ((NamedThreadFactory) ((ThreadPoolExecutor) executor).getThreadFactory()).getPrefix();
+        }
+        return executor.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(executor));
+    }
+
+    /**
+     * 一个阶段在一个执行器上的统计
+     */
+    public static class StageStats {
+        private final String stage;
+        private final String executor;
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram execution = new LatencyHistogram();
+
+        StageStats(String stage, String executor) {
+            this.stage = stage;
+            this.executor = executor;
+        }
+
+        void record(long submitTime, long startTime, long endTime) {
+            queueWait.record(startTime - submitTime);
+            execution.record(endTime - startTime);
+        }
+
+        void reset() {
+            queueWait.reset();
+            execution.reset();
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public String getExecutor() {
+            return executor;
+        }
+
+        // 排队时间（纳秒）
+        public LatencyHistogram getQueueWait() {
+            return queueWait;
+        }
+
+        // 执行时间（纳秒）
+        public LatencyHistogram getExecution() {
+            return execution;
+        }
+    }
+}